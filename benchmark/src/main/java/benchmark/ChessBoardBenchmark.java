@@ -0,0 +1,46 @@
+package benchmark;
+
+import chess.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBoardBenchmark {
+    @Param({"start", "kiwipete", "position6"})
+    public String position;
+
+    private ChessBoard board;
+    private ChessBoard scratch;
+
+    @Setup
+    public void setUp() {
+        board = Positions.load(position).getBoard();
+        scratch = new ChessBoard();
+    }
+
+    @Benchmark
+    public ChessBoard copy() {
+        return new ChessBoard(board);
+    }
+
+    @Benchmark
+    public ChessBoard resetBoard() {
+        scratch.resetBoard();
+        return scratch;
+    }
+
+    @Benchmark
+    public int hashCodeOfBoard() {
+        return board.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsCopy() {
+        return board.equals(scratch);
+    }
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+import chess.*;
+import piecemoves.LegalMoveGenerator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The ChessGame calls the server makes for every move it receives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+    @Param({"start", "kiwipete", "position3", "position4", "position5", "position6", "inCheck"})
+    public String position;
+
+    private ChessGame game;
+    private ChessGame scratch;
+    private ChessPosition[] sideToMove;
+    private ChessMove legalMove;
+    private final int[] moveBuffer = new int[LegalMoveGenerator.MAX_MOVES];
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(position);
+        scratch = Positions.load(position);
+        sideToMove = Positions.piecesOf(game.getBoard(), game.getTeamTurn(), null);
+        for (ChessPosition start : sideToMove) {
+            if (!game.validMoves(start).isEmpty()) {
+                legalMove = game.validMoves(start).iterator().next();
+                break;
+            }
+        }
+    }
+
+    /**
+     * validMoves for every piece of the side to move, as a client highlighting moves would call it
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition start : sideToMove) {
+            blackhole.consume(game.validMoves(start));
+        }
+    }
+
+    /**
+     * Every legal move of the side to move as ints into a reused buffer, the form search and perft use
+     */
+    @Benchmark
+    public int generateMoves() {
+        return LegalMoveGenerator.generateMoves(game, moveBuffer);
+    }
+
+    /**
+     * The score sent with every LOAD_GAME for the observers' evaluation bar
+     */
+    @Benchmark
+    public int evaluate() {
+        return game.evaluate();
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(game.getTeamTurn());
+    }
+
+    /**
+     * A validated makeMove. Restoring the position costs one board copy,
+     * which ChessBoardBenchmark.copy measures on its own.
+     */
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        scratch.setBoard(new ChessBoard(game.getBoard()));
+        scratch.setTeamTurn(game.getTeamTurn());
+        scratch.makeMove(legalMove);
+        return scratch;
+    }
+
+    /**
+     * The unvalidated in-place make/unmake pair used by search and perft
+     */
+    @Benchmark
+    public ChessGame doMoveUndoMove() {
+        game.undoMove(game.doMove(legalMove));
+        return game;
+    }
+
+    @Benchmark
+    public long perft2() {
+        return Perft.perft(game, 2);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import chess.*;
+import piecemoves.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Each pseudo-legal piecemoves generator, run for every piece of its type
+ * (both colors) in the position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+    @Param({"start", "kiwipete", "position3", "position4", "position5", "position6"})
+    public String position;
+
+    private ChessBoard board;
+    private ChessPosition[] pawns;
+    private ChessPosition[] knights;
+    private ChessPosition[] bishops;
+    private ChessPosition[] rooks;
+    private ChessPosition[] queens;
+    private ChessPosition[] kings;
+
+    @Setup
+    public void setUp() {
+        board = Positions.load(position).getBoard();
+        pawns = Positions.piecesOf(board, null, ChessPiece.PieceType.PAWN);
+        knights = Positions.piecesOf(board, null, ChessPiece.PieceType.KNIGHT);
+        bishops = Positions.piecesOf(board, null, ChessPiece.PieceType.BISHOP);
+        rooks = Positions.piecesOf(board, null, ChessPiece.PieceType.ROOK);
+        queens = Positions.piecesOf(board, null, ChessPiece.PieceType.QUEEN);
+        kings = Positions.piecesOf(board, null, ChessPiece.PieceType.KING);
+    }
+
+    @Benchmark
+    public void pawnMoves(Blackhole blackhole) {
+        for (ChessPosition start : pawns) {
+            blackhole.consume(PawnMove.getPawnMoves(board, start));
+        }
+    }
+
+    @Benchmark
+    public void knightMoves(Blackhole blackhole) {
+        for (ChessPosition start : knights) {
+            blackhole.consume(KnightMove.getKnightMoves(board, start));
+        }
+    }
+
+    @Benchmark
+    public void bishopMoves(Blackhole blackhole) {
+        for (ChessPosition start : bishops) {
+            blackhole.consume(BishopMove.getBishopMoves(board, start));
+        }
+    }
+
+    @Benchmark
+    public void rookMoves(Blackhole blackhole) {
+        for (ChessPosition start : rooks) {
+            blackhole.consume(RookMove.getRookMoves(board, start));
+        }
+    }
+
+    @Benchmark
+    public void queenMoves(Blackhole blackhole) {
+        for (ChessPosition start : queens) {
+            blackhole.consume(QueenMove.getQueenMoves(board, start));
+        }
+    }
+
+    @Benchmark
+    public void kingMoves(Blackhole blackhole) {
+        for (ChessPosition start : kings) {
+            blackhole.consume(KingMove.getKingMoves(board, start));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package benchmark;
+
+import chess.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The positions every benchmark runs over. Each benchmark takes one of these
+ * names as its {@code position} parameter, so results can be compared per position.
+ */
+public class Positions {
+    public static final Map<String, String> FENS = Map.of(
+        "start", Fen.START_POSITION,
+        "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "inCheck", "rnb1kbnr/pppp1ppp/8/4p3/5PPq/8/PPPPP2P/RNBQKBNR w KQkq - 1 3"
+    );
+
+    public static ChessGame load(String name) {
+        String fen = FENS.get(name);
+        if (fen == null) {
+            throw new IllegalArgumentException("Unknown benchmark position: " + name);
+        }
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @param color the team to find, or null for both teams
+     * @param type  the piece type to find, or null for every type
+     * @return positions of every matching piece on the board
+     */
+    public static ChessPosition[] piecesOf(ChessBoard board, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        List<ChessPosition> found = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && (color == null || piece.getTeamColor() == color)
+                        && (type == null || piece.getPieceType() == type)) {
+                    found.add(position);
+                }
+            }
+        }
+        return found.toArray(new ChessPosition[0]);
+    }
+}
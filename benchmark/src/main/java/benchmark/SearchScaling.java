@@ -0,0 +1,73 @@
+package benchmark;
+
+import chess.ChessGame;
+import engine.Engine;
+import engine.SearchResult;
+import java.time.Duration;
+
+/**
+ * Reports how the Lazy SMP search scales with threads: nodes per second and
+ * the depth reached in a fixed time, averaged over every benchmark position.
+ * Each search starts from an empty transposition table.
+ * <p>
+ * Usage: {@code SearchScaling [milliseconds per search] [thread counts...]}.
+ * Thread counts default to powers of two up to the number of cores.
+ */
+public class SearchScaling {
+    private static final int TABLE_MEGABYTES = 64;
+
+    public static void main(String[] args) {
+        Duration budget = Duration.ofMillis((args.length > 0) ? Long.parseLong(args[0]) : 1000);
+        int[] threadCounts = threadCounts(args);
+
+        //one untimed round so every count runs on compiled code
+        run(1, budget);
+
+        System.out.printf("%8s %12s %8s %8s%n", "threads", "nps", "depth", "speedup");
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            double[] result = run(threads, budget);
+            if (baseline == 0) {
+                baseline = result[0];
+            }
+            System.out.printf("%8d %12.0f %8.1f %7.2fx%n", threads, result[0], result[1], result[0] / baseline);
+        }
+    }
+
+    /**
+     * @return average nodes per second and average depth over the positions
+     */
+    private static double[] run(int threads, Duration budget) {
+        double nps = 0;
+        double depth = 0;
+        try (Engine engine = new Engine(TABLE_MEGABYTES, threads)) {
+            for (String name : Positions.FENS.keySet()) {
+                ChessGame game = Positions.load(name);
+                engine.clear();
+                long start = System.nanoTime();
+                SearchResult result = engine.search(game, budget, Engine.MAX_DEPTH);
+                long nanos = Math.max(1, System.nanoTime() - start);
+                nps += result.nodes() * 1e9 / nanos;
+                depth += result.depth();
+            }
+        }
+        int positions = Positions.FENS.size();
+        return new double[] {nps / positions, depth / positions};
+    }
+
+    private static int[] threadCounts(String[] args) {
+        if (args.length > 1) {
+            int[] counts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                counts[i - 1] = Integer.parseInt(args[i]);
+            }
+            return counts;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] counts = new int[32 - Integer.numberOfLeadingZeros(cores)];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 1 << i;
+        }
+        return counts;
+    }
+}
@@ -82,6 +82,8 @@ public class ChessClient implements NotificationHandler {
                 case "move" -> makeMove(params);
                 case "leave" -> leave();
                 case "resign" -> resign();
+                case "analyze" -> analyze();
+                case "hint" -> hint();
                 default -> help();
             };
         } catch (Exception ex) {
@@ -376,6 +378,18 @@ public class ChessClient implements NotificationHandler {
         }
     }
 
+    public String analyze() throws Exception {
+        assertInGame();
+        ws.analyze(authToken, joinedGameData.gameID());
+        return "Analysis requested. The result will appear when the server finishes.";
+    }
+
+    public String hint() throws Exception {
+        assertPlayer();
+        ws.hint(authToken, joinedGameData.gameID());
+        return "Hint requested.";
+    }
+
     public String help() {
         if (state == State.SIGNEDOUT) {
             return """
@@ -403,12 +417,15 @@ public class ChessClient implements NotificationHandler {
                     move <start> <end> - move piece from start to end (ex. move a1 a2)
                     leave - exits game and allows other player to take your spot
                     resign - forfeit the game
+                    analyze - ask the server for the best move and evaluation
+                    hint - suggest a move, straight from the opening book in known openings
                     help - with possible commands
                     """;
         }
         return """
                 redraw - redraws the chessboard
                 highlight <pos> - highlights all legal moves for piece at pos (ex. a1)
+                analyze - ask the server for the best move and evaluation
                 leave - exits game and returns to previous menu
                 help - with possible commands
                 """;
@@ -446,7 +463,7 @@ public class ChessClient implements NotificationHandler {
         if (col < 1 || col > 8 || row < 1 || row > 8) {
             throw new Exception("Error: position is out of bounds. Should be between a1 and h8.");
         }
-        return new ChessPosition(row, col);
+        return ChessPosition.of(row, col);
     }
 
     private boolean checkNeedsPromotion(ChessPosition start, ChessPosition end) {
@@ -479,6 +496,9 @@ public class ChessClient implements NotificationHandler {
             System.out.print("\033[2K\033[1A\033[2K");
             try {
                 ChessBoardUI.drawBoard(loadMsg.getGame(), playerColor, null);
+                if (state == State.OBSERVER) {
+                    ChessBoardUI.drawEvaluation(loadMsg.getEvaluation());
+                }
             } catch (Exception ignored) {}
 
             printPrompt();
@@ -488,6 +508,15 @@ public class ChessClient implements NotificationHandler {
             System.out.println("\n◉ " + note.getNotificationMessage() + RESET);
             printPrompt();
         }
+        else if (notification.getServerMessageType() == ServerMessage.ServerMessageType.ANALYSIS) {
+            AnalysisMessage analysis = (AnalysisMessage) notification;
+            String score = analysis.isMate() ? (analysis.getEvaluation() > 0 ? "white mates" : "black mates")
+                    : String.format("%+.2f", analysis.getEvaluation() / 100.0);
+            String best = (analysis.getBestMove() == null) ? "none" : analysis.getBestMove().toString();
+            String source = analysis.isFromBook() ? "Book move" : "Analysis (depth " + analysis.getDepth() + ")";
+            System.out.println("\n◉ " + source + ": best move " + best + ", " + score + RESET);
+            printPrompt();
+        }
         else if (notification.getServerMessageType() == ServerMessage.ServerMessageType.ERROR) {
             ErrorMessage err = (ErrorMessage) notification;
             System.out.println("\n" + RED + "Error: " + err.getErrorMessage() + RESET);
@@ -34,6 +34,7 @@ public class WebSocketFacade extends Endpoint {
                         case LOAD_GAME -> gson.fromJson(message, LoadGameMessage.class);
                         case NOTIFICATION -> gson.fromJson(message, NotificationMessage.class);
                         case ERROR -> gson.fromJson(message, ErrorMessage.class);
+                        case ANALYSIS -> gson.fromJson(message, AnalysisMessage.class);
                         default -> baseNotification;
                     };
 
@@ -85,4 +86,22 @@ public class WebSocketFacade extends Endpoint {
             throw new ResponseException(ResponseException.Code.ServerError, ex.getMessage());
         }
     }
+
+    public void analyze(String authToken, int gameID) throws ResponseException {
+        try {
+            var action = new UserGameCommand(UserGameCommand.CommandType.ANALYZE, authToken, gameID);
+            this.session.getBasicRemote().sendText(new Gson().toJson(action));
+        } catch (IOException ex) {
+            throw new ResponseException(ResponseException.Code.ServerError, ex.getMessage());
+        }
+    }
+
+    public void hint(String authToken, int gameID) throws ResponseException {
+        try {
+            var action = new UserGameCommand(UserGameCommand.CommandType.HINT, authToken, gameID);
+            this.session.getBasicRemote().sendText(new Gson().toJson(action));
+        } catch (IOException ex) {
+            throw new ResponseException(ResponseException.Code.ServerError, ex.getMessage());
+        }
+    }
 }
\ No newline at end of file
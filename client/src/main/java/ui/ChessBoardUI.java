@@ -26,6 +26,10 @@ public class ChessBoardUI {
     private static final String LABEL = SET_TEXT_COLOR_YELLOW + SET_TEXT_BOLD;
     private static final String RESET_LABEL = RESET_TEXT_BOLD_FAINT + RESET_TEXT_COLOR;
 
+    private static final int EVALUATION_BAR_WIDTH = 24;
+    //a lead of this many centipawns or more fills the bar
+    private static final int EVALUATION_BAR_RANGE = 1200;
+
     public static void drawBoard(
           ChessGame game, 
           ChessGame.TeamColor playerColor, 
@@ -45,6 +49,20 @@ public class ChessBoardUI {
         System.out.println(RESET_TEXT + RESET_BG);
     }
 
+    /**
+     * Draws a bar split between white and black by the evaluation, with the score in pawns
+     *
+     * @param evaluation centipawns from white's point of view
+     */
+    public static void drawEvaluation(int evaluation) {
+        int clamped = Math.max(-EVALUATION_BAR_RANGE, Math.min(EVALUATION_BAR_RANGE, evaluation));
+        int whiteCells = (EVALUATION_BAR_WIDTH / 2) + clamped * (EVALUATION_BAR_WIDTH / 2) / EVALUATION_BAR_RANGE;
+        System.out.print(LABEL + String.format("%+.2f ", evaluation / 100.0) + RESET_LABEL);
+        System.out.print(LIGHT_SQUARE + " ".repeat(whiteCells));
+        System.out.print(DARK_SQUARE + " ".repeat(EVALUATION_BAR_WIDTH - whiteCells));
+        System.out.println(RESET_BG);
+    }
+
     private static void drawBoardWhitePerspective(
           ChessBoard board, 
           ChessGame.TeamColor playerColor,
@@ -55,7 +73,7 @@ public class ChessBoardUI {
         for (int row = 7; row >= 0; row--) {
             printRowLabel(row + 1);
             for (int col = 0; col < BOARD_SIZE; col++) {
-                ChessPosition pos = new ChessPosition(row + 1, col + 1);
+                ChessPosition pos = ChessPosition.of(row + 1, col + 1);
                 ChessPiece piece = board.getPiece(pos);
                 boolean isLight = isLightSquare(row, col);
                 boolean highlight = false;
@@ -86,7 +104,7 @@ public class ChessBoardUI {
         for (int row = 0; row < BOARD_SIZE; row++) {
             printRowLabel(row + 1);
             for (int col = BOARD_SIZE - 1; col >= 0; col--) {
-                ChessPosition pos = new ChessPosition(row + 1, col + 1);
+                ChessPosition pos = ChessPosition.of(row + 1, col + 1);
                 ChessPiece piece = board.getPiece(pos);
                 boolean isLight = isLightSquare(row, col);
                 boolean highlight = false;
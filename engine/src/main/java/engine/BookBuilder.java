@@ -0,0 +1,101 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.Move;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from opening lines. Every position along
+ * a line gets the move played from it, and a move played in several lines
+ * gets a higher weight.
+ * <p>
+ * Run {@code main} with a text file of lines and the book file to write. Each
+ * line holds moves from the starting position in long algebraic notation,
+ * e.g. {@code e2e4 e7e5 g1f3}; blank lines and lines starting with # are skipped.
+ */
+public class BookBuilder {
+    //Zobrist key, then move, then times played
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+
+    /**
+     * Adds every position and move of a line played from the starting position
+     *
+     * @throws IllegalArgumentException if a move is not legal
+     */
+    public void addLine(String line) {
+        ChessGame game = Fen.parse(Fen.START_POSITION);
+        for (String text : line.trim().split("\\s+")) {
+            if (text.isEmpty()) {
+                continue;
+            }
+            int move = Move.parse(text);
+            long key = game.getZobristKey();
+            try {
+                game.makeMove(Move.toChessMove(move));
+            } catch (InvalidMoveException e) {
+                throw new IllegalArgumentException("Illegal move " + text + " in line: " + line, e);
+            }
+            counts.computeIfAbsent(key, k -> new HashMap<>()).merge(move, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return number of entries the book will have
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Integer, Integer> moves : counts.values()) {
+            size += moves.size();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the entries sorted by key, the order {@link OpeningBook} searches in
+     */
+    public void write(Path file) throws IOException {
+        List<Long> keys = new ArrayList<>(counts.keySet());
+        keys.sort(Long::compare);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeLong(OpeningBook.MAGIC);
+            out.writeLong(size());
+            for (long key : keys) {
+                for (Map.Entry<Integer, Integer> entry : counts.get(key).entrySet()) {
+                    out.writeLong(key);
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Usage: {@code BookBuilder <lines file> <book file>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BookBuilder <lines file> <book file>");
+            System.exit(1);
+        }
+        BookBuilder builder = new BookBuilder();
+        int lines = 0;
+        for (String line : Files.readAllLines(Path.of(args[0]))) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                builder.addLine(line);
+                lines++;
+            }
+        }
+        builder.write(Path.of(args[1]));
+        System.out.printf("%d lines, %d entries written to %s%n", lines, builder.size(), args[1]);
+    }
+}
@@ -0,0 +1,203 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Evaluation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One tablebase endgame, named by its material with white's pieces first,
+ * e.g. "KQK" or "KRKP", and the numbering of its positions.
+ * <p>
+ * The pieces are put in slots: white king, white pieces, black king, black
+ * pieces. A position's index is the square of each slot as a base 64 number,
+ * times two, plus one when black is to move. Tables are only kept with the
+ * stronger side as white; a position where black is stronger is looked up
+ * with the colors swapped and the board flipped top to bottom.
+ */
+final class Endgame {
+    static final int MAX_PIECES = 4;
+
+    //piece letters in the order they appear in names
+    private static final String ORDER = "QRBNP";
+    private static final ChessPiece.PieceType[] ORDER_TYPES = {ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+        ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.PAWN};
+    private static final int FLIP = 56;
+
+    final String name;
+    final ChessGame.TeamColor[] colors;
+    final ChessPiece.PieceType[] types;
+    //number of indexes, legal or not
+    final int positions;
+
+    /**
+     * The material on a board
+     *
+     * @param name     name of the endgame table that holds the position
+     * @param mirrored true if the table has the colors the other way round
+     */
+    record Material(String name, boolean mirrored) {
+        boolean isDeadDraw() {
+            return name.equals("KK") || name.equals("KBK") || name.equals("KNK");
+        }
+    }
+
+    private Endgame(String name) {
+        int blackKing = name.indexOf('K', 1);
+        if (!name.startsWith("K") || blackKing < 0 || name.length() > MAX_PIECES) {
+            throw new IllegalArgumentException("Not an endgame of at most " + MAX_PIECES + " pieces: " + name);
+        }
+        String white = name.substring(1, blackKing);
+        String black = name.substring(blackKing + 1);
+        if (!canonicalName(white, black).name().equals(name)) {
+            throw new IllegalArgumentException("Endgame should be named " + canonicalName(white, black).name() + ": " + name);
+        }
+        this.name = name;
+        this.colors = new ChessGame.TeamColor[name.length()];
+        this.types = new ChessPiece.PieceType[name.length()];
+        for (int slot = 0; slot < name.length(); slot++) {
+            colors[slot] = (slot < blackKing) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            char letter = name.charAt(slot);
+            types[slot] = (letter == 'K') ? ChessPiece.PieceType.KING : ORDER_TYPES[ORDER.indexOf(letter)];
+        }
+        this.positions = 2 << (6 * name.length());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name is not a canonical endgame name
+     */
+    static Endgame of(String name) {
+        return new Endgame(name);
+    }
+
+    /**
+     * @param white letters of white's pieces other than the king, in any order
+     * @param black letters of black's pieces other than the king, in any order
+     */
+    static Material canonicalName(String white, String black) {
+        white = sorted(white);
+        black = sorted(black);
+        boolean mirrored = stronger(black, white);
+        return mirrored ? new Material("K" + black + "K" + white, true) : new Material("K" + white + "K" + black, false);
+    }
+
+    /**
+     * @return the material on the board, or null if it is not one king each and at most MAX_PIECES pieces
+     */
+    static Material materialOf(ChessBoard board) {
+        if (Long.bitCount(board.getOccupancy()) > MAX_PIECES
+                || Long.bitCount(board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)) != 1
+                || Long.bitCount(board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING)) != 1) {
+            return null;
+        }
+        return canonicalName(letters(board, ChessGame.TeamColor.WHITE), letters(board, ChessGame.TeamColor.BLACK));
+    }
+
+    /**
+     * @param mirrored true to read the board with the colors swapped and flipped, see {@link Material}
+     * @return index of the position, whose pieces must match this endgame
+     */
+    int index(ChessBoard board, ChessGame.TeamColor toMove, boolean mirrored) {
+        int index = 0;
+        for (int slot = 0; slot < types.length; slot++) {
+            ChessGame.TeamColor color = mirrored ? opponent(colors[slot]) : colors[slot];
+            long pieces = board.getPieces(color, types[slot]);
+            //a second piece of the same kind takes the next square up
+            for (int earlier = 0; earlier < slot; earlier++) {
+                if (types[earlier] == types[slot] && colors[earlier] == colors[slot]) {
+                    pieces &= pieces - 1;
+                }
+            }
+            int square = Long.numberOfTrailingZeros(pieces);
+            index = index * 64 + (mirrored ? square ^ FLIP : square);
+        }
+        boolean whiteToMove = (toMove == ChessGame.TeamColor.WHITE) != mirrored;
+        return index * 2 + (whiteToMove ? 0 : 1);
+    }
+
+    /**
+     * @return square of the piece in the slot for the given index
+     */
+    int square(int index, int slot) {
+        return (index >>> (1 + 6 * (types.length - 1 - slot))) & 63;
+    }
+
+    static ChessGame.TeamColor toMove(int index) {
+        return ((index & 1) == 0) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * @return names of the endgames a capture or promotion can lead to, dead draws included
+     */
+    List<Material> successors() {
+        int blackKing = name.indexOf('K', 1);
+        String white = name.substring(1, blackKing);
+        String black = name.substring(blackKing + 1);
+        List<Material> successors = new ArrayList<>();
+        for (int i = 0; i < white.length(); i++) {
+            successors.add(canonicalName(white.substring(0, i) + white.substring(i + 1), black));
+            if (white.charAt(i) == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    successors.add(canonicalName(white.substring(0, i) + promotion + white.substring(i + 1), black));
+                }
+            }
+        }
+        for (int i = 0; i < black.length(); i++) {
+            successors.add(canonicalName(white, black.substring(0, i) + black.substring(i + 1)));
+            if (black.charAt(i) == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    successors.add(canonicalName(white, black.substring(0, i) + promotion + black.substring(i + 1)));
+                }
+            }
+        }
+        return successors;
+    }
+
+    static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    private static String letters(ChessBoard board, ChessGame.TeamColor color) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ORDER_TYPES.length; i++) {
+            sb.append(String.valueOf(ORDER.charAt(i)).repeat(Long.bitCount(board.getPieces(color, ORDER_TYPES[i]))));
+        }
+        return sb.toString();
+    }
+
+    private static String sorted(String pieces) {
+        char[] letters = pieces.toCharArray();
+        Arrays.sort(letters);
+        StringBuilder sb = new StringBuilder();
+        for (char letter : ORDER.toCharArray()) {
+            for (char c : letters) {
+                if (c == letter) {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return true if side a has more pieces, or as many worth more
+     */
+    private static boolean stronger(String a, String b) {
+        if (a.length() != b.length()) {
+            return a.length() > b.length();
+        }
+        int difference = value(a) - value(b);
+        return (difference != 0) ? difference > 0 : a.compareTo(b) < 0;
+    }
+
+    private static int value(String pieces) {
+        int value = 0;
+        for (char letter : pieces.toCharArray()) {
+            value += Evaluation.pieceValue(ORDER_TYPES[ORDER.indexOf(letter)]);
+        }
+        return value;
+    }
+}
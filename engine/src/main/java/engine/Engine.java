@@ -0,0 +1,143 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chooses moves for a computer player or a hint by searching the game tree
+ * for a fixed amount of time.
+ * <p>
+ * An Engine keeps a transposition table between searches, so consecutive
+ * moves of a game reuse what earlier searches learned. Searches work on a
+ * copy of the game and only share the lock-free table, so one Engine may be
+ * used by several threads at once.
+ * <p>
+ * With more than one thread, the calling thread searches alongside helper
+ * threads from the Engine's own pool. Every thread searches the whole tree
+ * and they meet only in the shared table, which is the Lazy SMP scheme: the
+ * more threads, the deeper the search gets in the same time.
+ */
+public class Engine implements AutoCloseable {
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int MAX_DEPTH = Search.MAX_PLY - 1;
+
+    private final TranspositionTable table;
+    private final int threads;
+    //null when searching on the calling thread only
+    private final ExecutorService helpers;
+
+    public Engine() {
+        this(DEFAULT_TABLE_MEGABYTES, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param tableMegabytes memory for the transposition table
+     */
+    public Engine(int tableMegabytes) {
+        this(tableMegabytes, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param tableMegabytes memory for the transposition table
+     * @param threads        threads each search runs on, counting the caller's
+     */
+    public Engine(int tableMegabytes, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("An engine needs at least one thread, not " + threads);
+        }
+        this.table = new TranspositionTable(tableMegabytes);
+        this.threads = threads;
+        this.helpers = (threads == 1) ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "engine-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Finds the best move for the team to move within the time budget
+     *
+     * @param game       game to move in, which is not changed
+     * @param timeBudget how long to search. A depth one search always finishes,
+     *                   even if it takes longer.
+     * @return the best move found, or null if the team to move has no legal move
+     */
+    public ChessMove bestMove(ChessGame game, Duration timeBudget) {
+        return search(game, timeBudget, MAX_DEPTH).move();
+    }
+
+    /**
+     * Searches the game for the team to move
+     *
+     * @param game       game to search, which is not changed
+     * @param timeBudget how long to search
+     * @param maxDepth   deepest iteration to run, in plies
+     * @return the best move of the deepest iteration any thread finished, with
+     * its score, and the nodes visited by all threads together
+     */
+    public SearchResult search(ChessGame game, Duration timeBudget, int maxDepth) {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Future<SearchResult>> running = new ArrayList<>(threads - 1);
+        for (int helper = 1; helper < threads; helper++) {
+            Search search = new Search(new ChessGame(game), table, deadline, stop, helper);
+            running.add(helpers.submit(() -> search.run(maxDepth)));
+        }
+
+        SearchResult best = new Search(new ChessGame(game), table, deadline, stop, 0).run(maxDepth);
+        stop.set(true);
+        long nodes = best.nodes();
+        for (Future<SearchResult> future : running) {
+            SearchResult result = await(future);
+            if (result == null) {
+                continue;
+            }
+            nodes += result.nodes();
+            if (result.move() != null && result.depth() > best.depth()) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.move(), best.score(), best.depth(), nodes);
+    }
+
+    /**
+     * Forgets everything learned by earlier searches
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Stops the helper threads. The helpers are daemon threads, so an Engine
+     * that is never closed does not keep the program running.
+     */
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the helper's result, or null if the calling thread was interrupted
+     */
+    private static SearchResult await(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import piecemoves.LegalMoveGenerator;
+
+/**
+ * A read-only opening book memory-mapped from a file.
+ * <p>
+ * The file is a 16 byte header (magic, entry count) followed by 16 byte
+ * entries: the Zobrist key of a position, a book move from it in the
+ * {@link Move} encoding, and how often the move was played. Entries are
+ * sorted by key, so a lookup is a binary search straight over the mapped
+ * pages. Nothing is copied onto the heap, startup costs one mmap call, and
+ * processes on the same host share the pages through the OS page cache.
+ * All values are big-endian. Files are written by {@link BookBuilder}.
+ */
+public class OpeningBook {
+    static final long MAGIC = 0x4348455353424B31L; //"CHESSBK1"
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 16;
+
+    private static final OpeningBook EMPTY = new OpeningBook(ByteBuffer.allocate(0), 0);
+
+    /**
+     * A move the book suggests
+     *
+     * @param move   the move, without flags
+     * @param weight how often it was played, relative to the position's other book moves
+     */
+    public record BookMove(ChessMove move, int weight) {
+    }
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file. The mapping outlives the file channel, so nothing needs closing.
+     *
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            long count = buffer.getLong(8);
+            if (buffer.getLong(0) != MAGIC || count != (length - HEADER_BYTES) / ENTRY_BYTES
+                    || (length - HEADER_BYTES) % ENTRY_BYTES != 0) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            return new OpeningBook(buffer.slice(HEADER_BYTES, (int) (length - HEADER_BYTES)), (int) count);
+        }
+    }
+
+    /**
+     * @return a book with no positions, for when no book file is available
+     */
+    public static OpeningBook empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return number of entries (position and move pairs)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the book moves for the position, most played first, or an empty list
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        List<BookMove> moves = new ArrayList<>();
+        long key = game.getZobristKey();
+        for (int i = firstIndex(key); i < size && keyAt(i) == key; i++) {
+            moves.add(new BookMove(Move.toChessMove(entries.getInt(i * ENTRY_BYTES + 8)),
+                    entries.getInt(i * ENTRY_BYTES + 12)));
+        }
+        moves.sort((a, b) -> Integer.compare(b.weight(), a.weight()));
+        return moves;
+    }
+
+    /**
+     * @return the most played book move that is legal in the game, or null if the
+     * position is not in the book
+     */
+    public ChessMove bestMove(ChessGame game) {
+        List<BookMove> moves = lookup(game);
+        if (moves.isEmpty()) {
+            return null;
+        }
+        //a key collision must never suggest an illegal move
+        int[] legal = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generateMoves(game, legal);
+        for (BookMove candidate : moves) {
+            int move = Move.of(candidate.move());
+            for (int i = 0; i < count; i++) {
+                if (Move.sameMove(legal[i], move)) {
+                    return candidate.move();
+                }
+            }
+        }
+        return null;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    /**
+     * @return index of the first entry whose key is not less than key
+     */
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,373 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Evaluation;
+import chess.Move;
+import piecemoves.AttackTables;
+import piecemoves.LegalMoveGenerator;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One iterative deepening alpha-beta search on a private copy of a game.
+ * <p>
+ * Each iteration searches one ply deeper than the last, so the search can be
+ * stopped at any time and still answer with the best move of the deepest
+ * finished iteration. Earlier iterations fill the transposition table, whose
+ * best moves are then tried first, which makes the deeper iterations cut off
+ * far sooner than a single search at full depth would.
+ * <p>
+ * Moves are ordered: transposition table move, captures by most valuable
+ * victim and least valuable attacker, promotions, the two killer moves of the
+ * ply, then quiet moves by history score. At the horizon a capture-only
+ * quiescence search resolves hanging pieces before the position is evaluated.
+ * <p>
+ * Several searches of the same position can run at once on separate threads,
+ * sharing only the transposition table (Lazy SMP). Each thread finds lines
+ * the others have not searched yet in the table, so together they reach
+ * deeper than one thread would. Odd numbered helpers start one ply deeper, so
+ * the threads do not all work on the same iteration.
+ */
+class Search {
+    static final int INFINITY = 32000;
+    static final int MATE = 31000;
+    static final int MAX_PLY = 128;
+    static final int MATE_THRESHOLD = MATE - MAX_PLY;
+
+    //the clock is read once every this many nodes
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private static final int TABLE_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int PROMOTION_SCORE = 1 << 27;
+    private static final int KILLER_SCORE = 1 << 26;
+
+    private final ChessGame game;
+    private final ChessBoard board;
+    private final TranspositionTable table;
+    private final long deadline;
+    private final AtomicBoolean stop;
+    private final int thread;
+
+    private final int[][] moves = new int[MAX_PLY][LegalMoveGenerator.MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY][LegalMoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    //indexed by from * 64 + to, raised when a quiet move causes a cutoff
+    private final int[] history = new int[64 * 64];
+    //Zobrist keys of the positions on the current line, for spotting repetitions
+    private final long[] path = new long[MAX_PLY + 1];
+    //Zobrist keys of the positions played before the root since the last pawn move or capture, oldest first
+    private final long[] played;
+
+    private long nodes;
+    private boolean stopped;
+    private boolean mustFinish;
+    private int rootBest;
+    private int rootBestScore;
+
+    /**
+     * @param game     position to search from, which the search changes while running
+     * @param table    transposition table, which may be shared with other searches
+     * @param deadline System.nanoTime() value at which to stop
+     * @param stop     set by another thread to stop this search early
+     * @param thread   0 for the main search, or the number of a helper
+     */
+    Search(ChessGame game, TranspositionTable table, long deadline, AtomicBoolean stop, int thread) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.table = table;
+        this.deadline = deadline;
+        this.stop = stop;
+        this.thread = thread;
+        long[] keys = game.getHistory();
+        this.played = Arrays.copyOf(keys, keys.length - 1);
+    }
+
+    /**
+     * Searches one ply deeper at a time until maxDepth, the deadline, or a forced
+     * mate. The main search always finishes its first iteration, so a legal move
+     * is found however short the time.
+     */
+    SearchResult run(int maxDepth) {
+        int bestMove = 0;
+        int bestScore = 0;
+        int finished = 0;
+        for (int depth = 1 + (thread & 1); depth <= Math.min(maxDepth, MAX_PLY - 1); depth++) {
+            mustFinish = (thread == 0 && depth == 1);
+            rootBest = 0;
+            alphaBeta(depth, 0, -INFINITY, INFINITY);
+            //a stopped iteration still tried the previous best move first, so any move it
+            //fully searched and preferred is at least as good
+            if (rootBest != 0) {
+                bestMove = rootBest;
+                bestScore = rootBestScore;
+            }
+            if (stopped) {
+                break;
+            }
+            finished = depth;
+            if (Math.abs(bestScore) >= MATE_THRESHOLD || bestMove == 0) {
+                break;
+            }
+        }
+        return new SearchResult((bestMove == 0) ? null : Move.toChessMove(bestMove), bestScore, finished, nodes);
+    }
+
+    private int alphaBeta(int depth, int ply, int alpha, int beta) {
+        long key = game.getZobristKey();
+        path[ply] = key;
+        if (ply > 0 && isRepetition(ply)) {
+            return 0;
+        }
+        boolean inCheck = inCheck();
+        if (inCheck && ply < MAX_PLY / 2) {
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        long entry = table.probe(key);
+        int tableMove = 0;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = LegalMoveGenerator.generateMoves(game, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(ply, count, tableMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            long undo = game.doMove(move);
+            int score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+            game.undoMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBest = move;
+                    rootBestScore = score;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                if (!Move.isCapture(move) && Move.promotion(move) == null) {
+                    rememberCutoff(ply, move, depth);
+                }
+                break;
+            }
+        }
+
+        int bound = (best <= originalAlpha) ? TranspositionTable.UPPER
+                : (best >= beta) ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Searches captures and promotions only, so the position is never evaluated
+     * in the middle of an exchange. In check every evasion is searched instead.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return evaluate();
+        }
+        boolean inCheck = inCheck();
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = evaluate();
+            if (best >= beta) {
+                return best;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = LegalMoveGenerator.generateMoves(game, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(ply, count, 0);
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            if (!inCheck && !Move.isCapture(move) && Move.promotion(move) == null) {
+                //moves are sorted, so every remaining move is quiet too
+                break;
+            }
+            long undo = game.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void scoreMoves(int ply, int count, int tableMove) {
+        int[] list = moves[ply];
+        int[] score = scores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            if (tableMove != 0 && Move.sameMove(move, tableMove)) {
+                score[i] = TABLE_MOVE_SCORE;
+            }
+            else if (Move.isCapture(move)) {
+                ChessPiece victim = board.getPiece(Move.to(move));
+                //only an en passant capture lands on an empty square
+                int victimValue = Evaluation.pieceValue((victim == null) ? ChessPiece.PieceType.PAWN : victim.getPieceType());
+                int attackerValue = Evaluation.pieceValue(board.getPiece(Move.from(move)).getPieceType());
+                score[i] = CAPTURE_SCORE + victimValue * 16 - attackerValue / 16;
+            }
+            else if (Move.promotion(move) != null) {
+                score[i] = PROMOTION_SCORE + Evaluation.pieceValue(Move.promotion(move));
+            }
+            else if (move == killers[ply][0] || move == killers[ply][1]) {
+                score[i] = KILLER_SCORE;
+            }
+            else {
+                score[i] = history[Move.from(move) * 64 + Move.to(move)];
+            }
+        }
+    }
+
+    /**
+     * Moves the best scored of the moves from index i onward to index i
+     */
+    private int pickNext(int ply, int i, int count) {
+        int[] list = moves[ply];
+        int[] score = scores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (score[j] > score[best]) {
+                best = j;
+            }
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int bestScore = score[best];
+        score[best] = score[i];
+        score[i] = bestScore;
+        return move;
+    }
+
+    private void rememberCutoff(int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int index = Move.from(move) * 64 + Move.to(move);
+        history[index] = Math.min(history[index] + depth * depth, KILLER_SCORE - 1);
+    }
+
+    /**
+     * @return the static evaluation from the side to move's point of view
+     */
+    private int evaluate() {
+        int score = game.evaluate();
+        return (game.getTeamTurn() == ChessGame.TeamColor.WHITE) ? score : -score;
+    }
+
+    private boolean inCheck() {
+        ChessGame.TeamColor us = game.getTeamTurn();
+        int king = board.getKingSquare(us);
+        ChessGame.TeamColor them = (us == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return king >= 0 && AttackTables.attackersOf(board, king, them, board.getOccupancy()) != 0;
+    }
+
+    /**
+     * @return true if the position at ply already occurred on the current line with the same side to
+     *         move, or occurred twice in the game before the root, so reaching it again ends the game
+     */
+    private boolean isRepetition(int ply) {
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (path[i] == path[ply]) {
+                return true;
+            }
+        }
+        //played[played.length - 1] is one ply before the root
+        int seen = 0;
+        for (int i = played.length - 2 + (ply & 1); i >= 0; i -= 2) {
+            if (played[i] == path[ply] && ++seen == 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts a node and checks the clock and the stop flag now and then
+     *
+     * @return true if the search has run out of time or been stopped
+     */
+    private boolean countNode() {
+        nodes++;
+        if ((nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && !mustFinish
+                && (stop.get() || System.nanoTime() - deadline >= 0)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    //mate scores are stored relative to the position, not the root, so they stay right wherever the position recurs
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_THRESHOLD) {
+            return score + ply;
+        }
+        if (score <= -MATE_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_THRESHOLD) {
+            return score - ply;
+        }
+        if (score <= -MATE_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,22 @@
+package engine;
+
+import chess.ChessMove;
+
+/**
+ * Outcome of a search
+ *
+ * @param move  best move found, or null if the side to move has no legal move
+ * @param score centipawns from the side to move's point of view. Scores beyond
+ *              {@link Search#MATE_THRESHOLD} are forced mates.
+ * @param depth deepest iteration that finished
+ * @param nodes positions visited
+ */
+public record SearchResult(ChessMove move, int score, int depth, long nodes) {
+
+    /**
+     * @return true if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_THRESHOLD;
+    }
+}
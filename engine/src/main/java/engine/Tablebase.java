@@ -0,0 +1,143 @@
+package engine;
+
+import chess.ChessGame;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Read-only endgame tablebases memory-mapped from a directory of table files,
+ * one per endgame, e.g. {@code KQK.tb}.
+ * <p>
+ * A table file is a 16 byte header (magic, position count) followed by the
+ * result of every position of the endgame, 2 bits each, four to a byte with
+ * the lowest index in the lowest bits. Positions are numbered as described in
+ * {@link Endgame}. Tables only know win, draw or loss under perfect play, not
+ * how many moves it takes, and ignore the fifty-move rule. Files are written
+ * by {@link TablebaseGenerator}.
+ */
+public class Tablebase {
+    static final long MAGIC = 0x4348455353544231L; //"CHESSTB1"
+    static final int HEADER_BYTES = 16;
+    static final String EXTENSION = ".tb";
+
+    //values stored in a table, from the point of view of the side to move
+    static final int DRAW = 0;
+    static final int WIN = 1;
+    static final int LOSS = 2;
+    static final int ILLEGAL = 3;
+
+    private static final Tablebase EMPTY = new Tablebase(Map.of());
+
+    /**
+     * Result of a position with perfect play, for the side to move
+     */
+    public enum Result {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    private record Table(Endgame endgame, ByteBuffer values) {
+    }
+
+    private final Map<String, Table> tables;
+
+    private Tablebase(Map<String, Table> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Maps every table file in a directory. The mappings outlive the file
+     * channels, so nothing needs closing.
+     *
+     * @throws IOException if the directory or a table file cannot be read
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Map<String, Table> tables = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Endgame endgame;
+                try {
+                    endgame = Endgame.of(name.substring(0, name.length() - EXTENSION.length()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Not a tablebase: " + file, e);
+                }
+                tables.put(endgame.name, new Table(endgame, map(file, endgame)));
+            }
+        }
+        return new Tablebase(tables);
+    }
+
+    /**
+     * @return a tablebase with no tables, for when no table files are available
+     */
+    public static Tablebase empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return names of the endgames that have a table, in alphabetical order
+     */
+    public Set<String> endgames() {
+        return new TreeSet<>(tables.keySet());
+    }
+
+    /**
+     * Looks a position up. Positions with castling rights or an en passant
+     * capture are never in a table.
+     *
+     * @return the result for the side to move, or null if the position is not in a table
+     */
+    public Result probe(ChessGame game) {
+        if (game.getCastlingRights() != 0 || game.getEnPassantSquare() >= 0) {
+            return null;
+        }
+        Endgame.Material material = Endgame.materialOf(game.getBoard());
+        if (material == null) {
+            return null;
+        }
+        if (material.isDeadDraw()) {
+            return Result.DRAW;
+        }
+        Table table = tables.get(material.name());
+        if (table == null) {
+            return null;
+        }
+        int index = table.endgame().index(game.getBoard(), game.getTeamTurn(), material.mirrored());
+        return switch (value(table.values(), index)) {
+            case WIN -> Result.WIN;
+            case LOSS -> Result.LOSS;
+            case DRAW -> Result.DRAW;
+            default -> null;
+        };
+    }
+
+    static int value(ByteBuffer values, int index) {
+        return (values.get(index >>> 2) >>> ((index & 3) * 2)) & 3;
+    }
+
+    private static ByteBuffer map(Path file, Endgame endgame) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length != HEADER_BYTES + endgame.positions / 4) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getLong(0) != MAGIC || buffer.getLong(8) != endgame.positions) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            return buffer.slice(HEADER_BYTES, endgame.positions / 4);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Move;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import piecemoves.LegalMoveGenerator;
+
+/**
+ * Builds {@link Tablebase} files by retrograde analysis.
+ * <p>
+ * Every legal position of an endgame starts out unknown, except checkmates
+ * (lost) and stalemates (drawn). Then the unknown positions are swept again
+ * and again: a position with a move to a lost position is won, and one where
+ * every move reaches a won position is lost, each from the point of view of
+ * the side to move. Captures and promotions leave the endgame, so the tables
+ * they lead to are built first. When a sweep proves nothing new, the rest are
+ * draws. Moves come from the same move generator games use, so the tables
+ * follow the rules exactly, save that a double pawn push is looked up as if
+ * no en passant capture were possible.
+ * <p>
+ * Run {@code main} with a directory and the endgames to build, e.g.
+ * {@code KQK KRK KPK}. Three piece tables take seconds; four piece tables
+ * take minutes and about 8MB of disk each.
+ */
+public class TablebaseGenerator {
+    //a position not decided yet, only used while building
+    private static final byte UNKNOWN = 4;
+
+    //results of the tables built so far, one byte per position
+    private final Map<String, byte[]> tables = new HashMap<>();
+    private final Map<String, Endgame> endgames = new HashMap<>();
+    private final ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+    private final int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+
+    /**
+     * Builds a table, and first every table its captures and promotions lead to
+     *
+     * @param name an endgame name with the stronger side first, e.g. "KRKP"
+     * @throws IllegalArgumentException if the name is not an endgame of at most 4 pieces
+     */
+    public void generate(String name) {
+        if (tables.containsKey(name)) {
+            return;
+        }
+        Endgame endgame = Endgame.of(name);
+        for (Endgame.Material next : endgame.successors()) {
+            if (!next.isDeadDraw()) {
+                generate(next.name());
+            }
+        }
+        tables.put(name, solve(endgame));
+    }
+
+    /**
+     * Writes a table built by {@link #generate} to {@code <directory>/<name>.tb}
+     */
+    public void write(String name, Path directory) throws IOException {
+        byte[] values = tables.get(name);
+        if (values == null) {
+            throw new IllegalStateException("Table not generated: " + name);
+        }
+        byte[] packed = new byte[values.length / 4];
+        for (int index = 0; index < values.length; index++) {
+            packed[index >>> 2] |= (byte) (values[index] << ((index & 3) * 2));
+        }
+        Path file = directory.resolve(name + Tablebase.EXTENSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeLong(Tablebase.MAGIC);
+            out.writeLong(values.length);
+            out.write(packed);
+        }
+    }
+
+    private byte[] solve(Endgame endgame) {
+        byte[] values = new byte[endgame.positions];
+        int[] unknown = new int[endgame.positions];
+        int unknownCount = 0;
+        for (int index = 0; index < endgame.positions; index++) {
+            if (!setUp(endgame, index)) {
+                values[index] = Tablebase.ILLEGAL;
+                continue;
+            }
+            if (LegalMoveGenerator.generateMoves(game, moves) == 0) {
+                values[index] = game.isInCheck(game.getTeamTurn()) ? (byte) Tablebase.LOSS : (byte) Tablebase.DRAW;
+                continue;
+            }
+            values[index] = UNKNOWN;
+            unknown[unknownCount++] = index;
+        }
+
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            int remaining = 0;
+            for (int i = 0; i < unknownCount; i++) {
+                int index = unknown[i];
+                setUp(endgame, index);
+                byte value = evaluateMoves(endgame, values);
+                if (value == UNKNOWN) {
+                    unknown[remaining++] = index;
+                }
+                else {
+                    values[index] = value;
+                    progress = true;
+                }
+            }
+            unknownCount = remaining;
+        }
+        for (int i = 0; i < unknownCount; i++) {
+            values[unknown[i]] = Tablebase.DRAW;
+        }
+        return values;
+    }
+
+    /**
+     * @return WIN if a move reaches a lost position, LOSS if every move reaches a won one, otherwise UNKNOWN
+     */
+    private byte evaluateMoves(Endgame endgame, byte[] values) {
+        int count = LegalMoveGenerator.generateMoves(game, moves);
+        boolean allWon = true;
+        for (int i = 0; i < count; i++) {
+            long undo = game.doMove(moves[i]);
+            int next = (Move.isCapture(moves[i]) || Move.promotion(moves[i]) != null)
+                    ? valueInOtherTable()
+                    : values[endgame.index(game.getBoard(), game.getTeamTurn(), false)];
+            game.undoMove(undo);
+            if (next == Tablebase.LOSS) {
+                return Tablebase.WIN;
+            }
+            if (next != Tablebase.WIN) {
+                allWon = false;
+            }
+        }
+        return allWon ? (byte) Tablebase.LOSS : UNKNOWN;
+    }
+
+    /**
+     * @return value for the side now to move of a position a capture or promotion led to
+     */
+    private int valueInOtherTable() {
+        Endgame.Material material = Endgame.materialOf(game.getBoard());
+        if (material.isDeadDraw()) {
+            return Tablebase.DRAW;
+        }
+        Endgame next = endgames.computeIfAbsent(material.name(), Endgame::of);
+        return tables.get(next.name)[next.index(game.getBoard(), game.getTeamTurn(), material.mirrored())];
+    }
+
+    /**
+     * Puts the pieces of a position on the game's board
+     *
+     * @return false if the position is illegal: two pieces on one square, a pawn on
+     * the first or last rank, or the side that just moved left in check
+     */
+    private boolean setUp(Endgame endgame, int index) {
+        ChessBoard board = game.getBoard();
+        for (long occupied = board.getOccupancy(); occupied != 0; occupied &= occupied - 1) {
+            board.addPiece(ChessPosition.fromSquareIndex(Long.numberOfTrailingZeros(occupied)), null);
+        }
+        for (int slot = 0; slot < endgame.types.length; slot++) {
+            int square = endgame.square(index, slot);
+            boolean backRank = square < 8 || square >= 56;
+            if ((board.getOccupancy() & (1L << square)) != 0
+                    || (endgame.types[slot] == ChessPiece.PieceType.PAWN && backRank)) {
+                return false;
+            }
+            board.addPiece(ChessPosition.fromSquareIndex(square), ChessPiece.of(endgame.colors[slot], endgame.types[slot]));
+        }
+        ChessGame.TeamColor toMove = Endgame.toMove(index);
+        game.setTeamTurn(toMove);
+        return !game.isInCheck(Endgame.opponent(toMove));
+    }
+
+    /**
+     * Usage: {@code TablebaseGenerator <directory> <endgame>...}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TablebaseGenerator <directory> <endgame>...");
+            System.exit(1);
+        }
+        Path directory = Files.createDirectories(Path.of(args[0]));
+        TablebaseGenerator generator = new TablebaseGenerator();
+        for (String name : Arrays.copyOfRange(args, 1, args.length)) {
+            long start = System.nanoTime();
+            generator.generate(name);
+            generator.write(name, directory);
+            System.out.printf("%s written in %.1fs%n", name, (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by Zobrist key, shared by
+ * every search an Engine runs.
+ * <p>
+ * The table takes no locks. Each entry is two longs, the packed data and the
+ * key XOR the data. A reader only accepts an entry when the two XOR back to
+ * the key it is looking for, so an entry half overwritten by another thread
+ * reads as a miss instead of as wrong data.
+ * <p>
+ * Data layout:
+ * <pre>
+ * bits  0-17  best move (see chess.Move), 0 for none
+ * bits 18-33  score + 32768
+ * bits 34-41  depth searched
+ * bits 42-43  bound: EXACT, LOWER or UPPER
+ * bit  63     set in every stored entry, so 0 always means empty
+ * </pre>
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0;
+    //score is at least the stored score (the search failed high)
+    public static final int LOWER = 1;
+    //score is at most the stored score (the search failed low)
+    public static final int UPPER = 2;
+
+    private static final int SCORE_SHIFT = 18;
+    private static final int DEPTH_SHIFT = 34;
+    private static final int BOUND_SHIFT = 42;
+    private static final long MOVE_MASK = (1L << SCORE_SHIFT) - 1;
+    private static final long STORED = 1L << 63;
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param megabytes memory to use, rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int megabytes) {
+        long entries = Long.highestOneBit(Math.max(1, (long) megabytes * 1024 * 1024 / ENTRY_BYTES));
+        int size = (int) Math.min(entries, 1 << 30);
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the entry's packed data, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        return ((keys[index] ^ entry) == key) ? entry : 0;
+    }
+
+    /**
+     * Stores a search result. An entry for another position is always replaced.
+     * An entry for the same position is kept if it was searched deeper, unless
+     * the new result is exact.
+     *
+     * @param move  best move found, or 0
+     * @param score score in the range of a short
+     * @param depth remaining depth the result was searched to
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long old = data[index];
+        if ((keys[index] ^ old) == key && depth(old) > depth && bound != EXACT) {
+            return;
+        }
+        long entry = STORED
+                | (move & MOVE_MASK)
+                | (long) (score + 32768) << SCORE_SHIFT
+                | (long) Math.max(0, Math.min(depth, 255)) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT;
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    /**
+     * Empties the table, for starting an unrelated game
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >>> SCORE_SHIFT & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT & 0x3);
+    }
+}
@@ -0,0 +1,126 @@
+package engine;
+
+import chess.*;
+import java.time.Duration;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTests {
+    private static final Duration BUDGET = Duration.ofMillis(200);
+
+    private Engine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new Engine(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(position(from), position(to), null);
+    }
+
+    private static ChessPosition position(String square) {
+        return ChessPosition.of(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    @Test
+    @DisplayName("Finds mate in one")
+    void mateInOne() {
+        ChessGame game = Fen.parse("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        SearchResult result = engine.search(game, BUDGET, Engine.MAX_DEPTH);
+
+        assertEquals(move("a1", "a8"), result.move());
+        assertTrue(result.isMate());
+        assertTrue(result.score() > 0);
+    }
+
+    @Test
+    @DisplayName("Takes a hanging queen")
+    void takesHangingQueen() {
+        ChessGame game = Fen.parse("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        assertEquals(move("d1", "d5"), engine.bestMove(game, BUDGET));
+    }
+
+    @Test
+    @DisplayName("No move without legal moves")
+    void noLegalMoves() {
+        ChessGame stalemate = Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        SearchResult result = engine.search(stalemate, BUDGET, Engine.MAX_DEPTH);
+        assertNull(result.move());
+        assertEquals(0, result.score());
+    }
+
+    @Test
+    @DisplayName("Sees repetitions of positions played before the search")
+    void gameRepetition() throws InvalidMoveException {
+        ChessGame game = Fen.parse("6nk/8/8/8/8/8/8/K2Q4 w - - 0 1");
+        String[] shuffle = {"d1d2", "g8f6", "d2d1", "f6g8", "d1d2", "g8f6", "d2d1"};
+        for (String text : shuffle) {
+            game.makeMove(move(text.substring(0, 2), text.substring(2, 4)));
+        }
+        //black is a queen down, but taking the knight back to g8 repeats the start a third time
+        SearchResult result = engine.search(game, BUDGET, 6);
+        assertEquals(move("f6", "g8"), result.move());
+        assertEquals(0, result.score());
+    }
+
+    @Test
+    @DisplayName("Respects the time budget and leaves the game alone")
+    void timeBudget() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String before = Fen.toFen(game);
+
+        long start = System.nanoTime();
+        SearchResult result = engine.search(game, Duration.ofMillis(50), Engine.MAX_DEPTH);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertNotNull(result.move());
+        assertTrue(game.validMoves(result.move().getStartPosition()).contains(result.move()));
+        assertTrue(result.depth() >= 1);
+        assertTrue(millis < 500, "took " + millis + " ms");
+        assertEquals(before, Fen.toFen(game));
+    }
+
+    @Test
+    @DisplayName("Single and multi-threaded searches agree")
+    void threads() {
+        ChessGame game = Fen.parse("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        try (Engine single = new Engine(1, 1); Engine parallel = new Engine(1, 4)) {
+            SearchResult alone = single.search(game, BUDGET, 6);
+            SearchResult together = parallel.search(game, BUDGET, 6);
+
+            assertEquals(move("d1", "d5"), alone.move());
+            assertEquals(move("d1", "d5"), together.move());
+            assertEquals(6, together.depth());
+            assertTrue(together.nodes() > 0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Engine(1, 0));
+    }
+
+    @Test
+    @DisplayName("Transposition table round trip")
+    void transpositionTable() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = Move.of(12, 28) | Move.CAPTURE;
+
+        assertEquals(0, table.probe(key));
+        table.store(key, move, -1234, 7, TranspositionTable.LOWER);
+
+        long entry = table.probe(key);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-1234, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0, table.probe(key ^ 1L << 40), "same slot, different key");
+
+        //a shallower bound does not replace a deeper result for the same position
+        table.store(key, 0, 50, 3, TranspositionTable.UPPER);
+        assertEquals(7, TranspositionTable.depth(table.probe(key)));
+    }
+}
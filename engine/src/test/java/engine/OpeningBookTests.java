@@ -0,0 +1,70 @@
+package engine;
+
+import chess.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTests {
+    @TempDir
+    Path dir;
+
+    private static ChessMove move(String text) {
+        return Move.toChessMove(Move.parse(text));
+    }
+
+    private OpeningBook build(String... lines) throws IOException {
+        BookBuilder builder = new BookBuilder();
+        for (String line : lines) {
+            builder.addLine(line);
+        }
+        Path file = dir.resolve("book.bin");
+        builder.write(file);
+        return OpeningBook.open(file);
+    }
+
+    @Test
+    @DisplayName("Most played move first")
+    void lookup() throws IOException {
+        OpeningBook book = build("e2e4 e7e5 g1f3", "e2e4 c7c5", "d2d4 d7d5", "e2e4 e7e5 f1c4");
+        assertEquals(7, book.size());
+
+        List<OpeningBook.BookMove> moves = book.lookup(new ChessGame());
+        assertEquals(List.of(new OpeningBook.BookMove(move("e2e4"), 3), new OpeningBook.BookMove(move("d2d4"), 1)), moves);
+        assertEquals(move("e2e4"), book.bestMove(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Positions are found by key, whatever the move order")
+    void transpositions() throws IOException {
+        OpeningBook book = build("d2d4 g8f6 c2c4 e7e6", "c2c4 e7e6 d2d4 g8f6 b1c3");
+        ChessGame game = Fen.parse(Fen.START_POSITION);
+        for (String text : List.of("d2d4", "g8f6", "c2c4", "e7e6")) {
+            assertDoesNotThrow(() -> game.makeMove(move(text)));
+        }
+        assertEquals(move("b1c3"), book.bestMove(game));
+    }
+
+    @Test
+    @DisplayName("Positions outside the book")
+    void outOfBook() throws IOException {
+        OpeningBook book = build("e2e4 e7e5");
+        assertNull(book.bestMove(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+        assertTrue(book.lookup(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).isEmpty());
+        assertNull(OpeningBook.empty().bestMove(new ChessGame()));
+        assertEquals(0, OpeningBook.empty().size());
+    }
+
+    @Test
+    @DisplayName("Bad input")
+    void badInput() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new BookBuilder().addLine("e2e4 e2e4"));
+        Path notABook = dir.resolve("not-a-book.bin");
+        Files.writeString(notABook, "this is not an opening book");
+        assertThrows(IOException.class, () -> OpeningBook.open(notABook));
+    }
+}
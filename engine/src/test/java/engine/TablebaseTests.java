@@ -0,0 +1,85 @@
+package engine;
+
+import chess.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTests {
+    @TempDir
+    static Path dir;
+
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        //KPK promotes into KQK and KRK, so all three get built
+        TablebaseGenerator generator = new TablebaseGenerator();
+        generator.generate("KPK");
+        for (String name : Set.of("KQK", "KRK", "KPK")) {
+            generator.write(name, dir);
+        }
+        tablebase = Tablebase.open(dir);
+    }
+
+    private static Tablebase.Result probe(String fen) {
+        return tablebase.probe(Fen.parse(fen));
+    }
+
+    @Test
+    @DisplayName("Tables are packed 2 bits per position")
+    void files() throws IOException {
+        assertEquals(Set.of("KPK", "KQK", "KRK"), tablebase.endgames());
+        assertEquals(Tablebase.HEADER_BYTES + 2 * 64 * 64 * 64 / 4, Files.size(dir.resolve("KQK.tb")));
+        assertThrows(IllegalArgumentException.class, () -> new TablebaseGenerator().generate("KRKQ"));
+    }
+
+    @Test
+    @DisplayName("Queen and rook win unless they hang")
+    void majorPieces() {
+        assertEquals(Tablebase.Result.WIN, probe("8/8/8/4k3/8/8/8/3QK3 w - - 0 1"));
+        assertEquals(Tablebase.Result.LOSS, probe("8/8/8/4k3/8/8/8/3QK3 b - - 0 1"));
+        assertEquals(Tablebase.Result.WIN, probe("8/8/8/4k3/8/8/8/R3K3 w - - 0 1"));
+        assertEquals(Tablebase.Result.DRAW, probe("8/8/8/8/8/8/2kQ4/7K b - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Checkmate is lost and stalemate drawn")
+    void terminalPositions() {
+        assertEquals(Tablebase.Result.LOSS, probe("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1"));
+        assertEquals(Tablebase.Result.DRAW, probe("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("King and pawn against king")
+    void pawnEndings() {
+        assertEquals(Tablebase.Result.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"));
+        assertEquals(Tablebase.Result.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+        //a rook pawn cannot drive the king out of the corner
+        assertEquals(Tablebase.Result.DRAW, probe("7k/8/8/8/8/8/7P/7K w - - 0 1"));
+        //the defending king takes the opposition
+        assertEquals(Tablebase.Result.DRAW, probe("8/4k3/8/4K3/4P3/8/8/8 w - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Black's material is looked up with the colors swapped")
+    void mirrored() {
+        assertEquals(Tablebase.Result.WIN, probe("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1"));
+        assertEquals(Tablebase.Result.LOSS, probe("8/8/8/8/4p3/4k3/8/4K3 w - - 0 1"));
+        assertEquals(Tablebase.Result.LOSS, probe("3qk3/8/8/8/4K3/8/8/8 w - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Positions outside the tables")
+    void outsideTables() {
+        assertNull(tablebase.probe(new ChessGame()));
+        assertNull(probe("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1"));
+        assertNull(probe("4k3/8/8/8/8/8/3BB3/4K3 w - - 0 1"));
+        assertEquals(Tablebase.Result.DRAW, probe("4k3/8/8/8/8/8/4N3/4K3 b - - 0 1"));
+        assertNull(Tablebase.empty().probe(Fen.parse("8/8/8/4k3/8/8/8/3QK3 w - - 0 1")));
+    }
+}
@@ -0,0 +1,419 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveLog;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import model.GameData;
+
+/**
+ * Keeps the games being played in memory in front of another GameAccess, and
+ * writes their changes behind.
+ * <p>
+ * Once a game has been written, the copy here is the authoritative one: moves and
+ * updates change it at once and are queued, and a background writer hands the
+ * queue to the backing store's {@link GameAccess#writeBatch} every flush
+ * interval, so one transaction carries the moves of many games. With
+ * {@link Durability#SYNC_ON_GAME_END} a write that ends a game waits until it
+ * and everything queued before it are stored. It throws if the store refuses
+ * the game's writes; if the store is down, it stays queued like any other
+ * write. A batch that fails is kept and retried first on the next flush, so
+ * writes to a game always reach the store in the order they were made.
+ * <p>
+ * Only writes bring a game into the cache. Reads of games not in the cache,
+ * and listing, go to the backing store with cached games laid over the
+ * result. Once all of a game's writes are stored it leaves the cache if it is
+ * over or has not been used for the idle timeout, so the cache holds the games
+ * being played and not every game ever touched. Creating a game writes through.
+ * <p>
+ * Versions are checked against the cached game when a write is made, so a
+ * caller learns of a conflict at once. The queued write keeps the version it
+ * was made at, and the store checks it again. If the store refuses a write,
+ * another process changed the game. That game's queued writes are then
+ * dropped and it leaves the cache, and the conflict listener is given the
+ * store's copy so the players can be shown the game as it really is; the
+ * other games in the batch are still stored.
+ */
+public class CachedGameAccess implements GameAccess, AutoCloseable {
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(200);
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    //most writes per transaction
+    static final int MAX_BATCH = 256;
+
+    /**
+     * When a write must be stored before the call that made it returns
+     */
+    public enum Durability {
+        //never; a crash loses the writes of the last flush interval
+        ASYNC,
+        //when the write ends the game, so finished games are never lost
+        SYNC_ON_GAME_END
+    }
+
+    /**
+     * A cached game and when it was last read or written
+     */
+    private static final class Entry {
+        final GameData game;
+        volatile long lastUsed = System.nanoTime();
+
+        Entry(GameData game) {
+            this.game = game;
+        }
+    }
+
+    private final GameAccess store;
+    private final Durability durability;
+    private final long idleNanos;
+    private final Map<Integer, Entry> games = new ConcurrentHashMap<>();
+    //writes not stored yet, oldest first. Guarded by itself
+    private final List<GameWrite> queued = new ArrayList<>();
+    //a batch that failed, retried before anything queued after it. Guarded by flushLock
+    private List<GameWrite> failed = new ArrayList<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService writer;
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private volatile Consumer<GameData> conflictListener = game -> { };
+
+    public CachedGameAccess(GameAccess store, Duration flushInterval, Durability durability) {
+        this(store, flushInterval, durability, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param idleTimeout how long a game with all its writes stored stays cached without being used
+     */
+    public CachedGameAccess(GameAccess store, Duration flushInterval, Durability durability, Duration idleTimeout) {
+        this.store = store;
+        this.durability = durability;
+        this.idleNanos = idleTimeout.toNanos();
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        writer.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void createGame(GameData game) throws Exception {
+        store.createGame(game);
+    }
+
+    /**
+     * Sets what is told when a game's queued writes are dropped for a conflict
+     *
+     * @param listener given the store's copy of the game, on the thread that flushed
+     */
+    public void setConflictListener(Consumer<GameData> listener) {
+        conflictListener = listener;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws Exception {
+        Entry cached = games.get(gameID);
+        if (cached == null) {
+            GameData stored = store.getGame(gameID);
+            //a write may have cached a newer copy while the store was read
+            cached = games.get(gameID);
+            if (cached == null) {
+                return (stored == null) ? null : copy(stored);
+            }
+        }
+        cached.lastUsed = System.nanoTime();
+        return copy(cached.game);
+    }
+
+    @Override
+    public boolean gameExists(int gameID) throws Exception {
+        return games.containsKey(gameID) || store.gameExists(gameID);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws Exception {
+        write(new GameWrite(copy(game), null));
+    }
+
+    @Override
+    public void addMove(GameData game, ChessMove move) throws Exception {
+        write(new GameWrite(copy(game), move));
+    }
+
+    /**
+     * Stores everything queued first, so the store's history is complete
+     */
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws Exception {
+        flush();
+        return store.getMoves(gameID);
+    }
+
+    /**
+     * Stores everything queued first, so the store's log is complete
+     */
+    @Override
+    public MoveLog getMoveLog(int gameID) throws Exception {
+        flush();
+        return store.getMoveLog(gameID);
+    }
+
+    @Override
+    public HashSet<GameData> listGames() throws Exception {
+        HashSet<GameData> result = new HashSet<>();
+        for (GameData stored : store.listGames()) {
+            Entry cached = games.get(stored.gameID());
+            result.add((cached == null) ? stored : copy(cached.game));
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() throws Exception {
+        synchronized (flushLock) {
+            synchronized (queued) {
+                queued.clear();
+                games.clear();
+            }
+            failed = new ArrayList<>();
+            store.clear();
+        }
+    }
+
+    /**
+     * Stores every queued write
+     *
+     * @throws Exception if the store fails; the writes stay queued
+     */
+    public void flush() throws Exception {
+        flushQueued();
+    }
+
+    /**
+     * @return games whose queued writes were dropped for a conflict
+     */
+    private Set<Integer> flushQueued() throws Exception {
+        synchronized (flushLock) {
+            List<GameWrite> batch = failed;
+            synchronized (queued) {
+                batch.addAll(queued);
+                queued.clear();
+            }
+            failed = new ArrayList<>();
+            Set<Integer> conflicted = new HashSet<>();
+            for (int start = 0; start < batch.size(); start += MAX_BATCH) {
+                int end = Math.min(batch.size(), start + MAX_BATCH);
+                List<GameWrite> chunk = batch.subList(start, end);
+                boolean stored = false;
+                if (conflicted.isEmpty()) {
+                    try {
+                        store.writeBatch(chunk);
+                        stored = true;
+                    } catch (ConflictException e) {
+                        //the transaction was rolled back, so find the game at fault one write at a time
+                    } catch (Exception e) {
+                        failed = new ArrayList<>(batch.subList(start, batch.size()));
+                        throw e;
+                    }
+                }
+                if (!stored) {
+                    writeEach(batch, start, end, conflicted);
+                }
+            }
+            evictStored();
+            return conflicted;
+        }
+    }
+
+    /**
+     * @return writes made but not stored yet
+     */
+    public int pendingWrites() {
+        synchronized (flushLock) {
+            synchronized (queued) {
+                return failed.size() + queued.size();
+            }
+        }
+    }
+
+    /**
+     * @return games in the cache
+     */
+    int cachedGames() {
+        return games.size();
+    }
+
+    /**
+     * @return games whose queued writes were dropped because the store had changed under them
+     */
+    public long conflicts() {
+        return conflicts.get();
+    }
+
+    /**
+     * @return flushes that failed and were retried later
+     */
+    public long flushFailures() {
+        return flushFailures.get();
+    }
+
+    /**
+     * Stops the background writer and stores what is left
+     */
+    @Override
+    public void close() throws Exception {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * @throws ConflictException if the game has been written since the caller read it, or, for a
+     *                           write that is stored at once, if the store refuses the game's writes
+     */
+    private void write(GameWrite write) throws Exception {
+        int gameID = write.game().gameID();
+        while (!enqueue(write)) {
+            //the game left the cache between looking it up and taking the lock
+        }
+        if (durability == Durability.SYNC_ON_GAME_END && write.game().game().gameOver) {
+            Set<Integer> conflicted;
+            try {
+                conflicted = flushQueued();
+            } catch (Exception e) {
+                //the write is still queued, and is stored once the store is back
+                flushFailures.incrementAndGet();
+                e.printStackTrace();
+                return;
+            }
+            //the listener has shown the game's players the stored game; the caller must not announce this write
+            if (conflicted.contains(gameID)) {
+                throw new ConflictException(gameID);
+            }
+        }
+    }
+
+    /**
+     * Checks a write's version, then caches its game and queues it
+     *
+     * @return false if the game was evicted while the store was not read, so it must be tried again
+     */
+    private boolean enqueue(GameWrite write) throws Exception {
+        int gameID = write.game().gameID();
+        //read outside the lock, which every other write and the flusher wait on
+        boolean wasCached = games.containsKey(gameID);
+        GameData stored = wasCached ? null : store.getGame(gameID);
+        //the cache and the queue change together, so the queue holds a game's writes in cache order
+        synchronized (queued) {
+            Entry cached = games.get(gameID);
+            if (cached == null && wasCached) {
+                return false;
+            }
+            GameData current = (cached == null) ? stored : cached.game;
+            if (current == null) {
+                throw new DataAccessException("Error: game with gameID " + gameID + " does not exist");
+            }
+            if (current.version() != write.game().version()) {
+                throw new ConflictException(gameID);
+            }
+            GameData game = write.game();
+            games.put(gameID, new Entry(new GameData(game.game(), gameID, game.gameName(), game.whiteUsername(),
+                    game.blackUsername(), game.version() + 1)));
+            queued.add(write);
+            return true;
+        }
+    }
+
+    /**
+     * Stores writes one at a time, skipping the games that conflicted
+     *
+     * @param conflicted games with a refused write; games refused here are added
+     * @throws Exception if the store fails for a reason other than a conflict; the
+     *                   writes from the failed one on are kept to retry
+     */
+    private void writeEach(List<GameWrite> batch, int start, int end, Set<Integer> conflicted) throws Exception {
+        for (int i = start; i < end; i++) {
+            GameWrite write = batch.get(i);
+            int gameID = write.game().gameID();
+            if (conflicted.contains(gameID)) {
+                continue;
+            }
+            try {
+                store.writeBatch(List.of(write));
+            } catch (ConflictException e) {
+                conflicted.add(gameID);
+                conflicts.incrementAndGet();
+                synchronized (queued) {
+                    games.remove(gameID);
+                    queued.removeIf(later -> later.game().gameID() == gameID);
+                }
+                System.err.println("Dropped unsaved writes to game " + gameID + ": " + e.getMessage());
+                reportConflict(gameID);
+            } catch (Exception e) {
+                failed = new ArrayList<>(batch.subList(i, batch.size()));
+                failed.removeIf(later -> conflicted.contains(later.game().gameID()));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Tells the conflict listener what the store holds for a game whose writes were dropped
+     */
+    private void reportConflict(int gameID) {
+        try {
+            GameData stored = store.getGame(gameID);
+            if (stored != null) {
+                conflictListener.accept(copy(stored));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Drops games with every write stored that are over or have been idle for the idle timeout
+     */
+    private void evictStored() {
+        long now = System.nanoTime();
+        synchronized (queued) {
+            Set<Integer> pending = new HashSet<>();
+            for (GameWrite write : failed) {
+                pending.add(write.game().gameID());
+            }
+            for (GameWrite write : queued) {
+                pending.add(write.game().gameID());
+            }
+            games.entrySet().removeIf(cached -> !pending.contains(cached.getKey())
+                    && (cached.getValue().game.game().gameOver || now - cached.getValue().lastUsed >= idleNanos));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            flushFailures.incrementAndGet();
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Callers change the games they are given, so the cache never hands out or keeps theirs
+     */
+    private static GameData copy(GameData game) {
+        return new GameData(new ChessGame(game.game()), game.gameID(), game.gameName(),
+                game.whiteUsername(), game.blackUsername(), game.version());
+    }
+}
@@ -0,0 +1,10 @@
+package dataaccess;
+
+/**
+ * Indicates a game was written by someone else since it was read, so the write was refused
+ */
+public class ConflictException extends DataAccessException {
+    public ConflictException(int gameID) {
+        super("Error: game " + gameID + " was changed by another write");
+    }
+}
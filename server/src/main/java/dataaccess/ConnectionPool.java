@@ -0,0 +1,268 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of database connections, so a DAO call borrows an open
+ * connection instead of paying for a TCP handshake and MySQL login.
+ * <p>
+ * Borrowed connections are handed out behind a proxy whose {@code close()}
+ * gives the connection back, so callers keep using try-with-resources. At most
+ * {@code maxSize} connections exist at once; a caller waits up to the acquire
+ * timeout for one to be returned and then gets an SQLException. A connection
+ * is thrown away when it is older than the max lifetime, and one that sat idle
+ * longer than the validation interval is checked with {@link Connection#isValid}
+ * before it is reused.
+ */
+public class ConnectionPool implements AutoCloseable {
+    /**
+     * Opens a new physical connection
+     */
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * @param maxSize            most connections open at once, borrowed or idle
+     * @param acquireTimeoutMs   longest a caller waits for a connection
+     * @param maxLifetimeMs      age after which a connection is closed instead of reused
+     * @param validateAfterMs    idle time after which a connection is validated before reuse
+     * @param validationTimeoutS seconds isValid may take
+     */
+    public record Config(int maxSize, long acquireTimeoutMs, long maxLifetimeMs, long validateAfterMs,
+                         int validationTimeoutS) {
+        public static final Config DEFAULT = new Config(10, 5_000, 30 * 60_000, 30_000, 2);
+    }
+
+    /**
+     * Snapshot of the pool's state
+     *
+     * @param active        connections borrowed right now
+     * @param idle          open connections waiting to be borrowed
+     * @param maxSize       most connections open at once
+     * @param acquired      connections handed out since the pool started
+     * @param created       physical connections opened
+     * @param timeouts      callers that gave up waiting for a connection
+     * @param averageWaitUs mean time callers waited for a connection, in microseconds
+     * @param maxWaitUs     longest time a caller waited for a connection, in microseconds
+     */
+    public record Metrics(int active, int idle, int maxSize, long acquired, long created, long timeouts,
+                          long averageWaitUs, long maxWaitUs) {
+    }
+
+    private final ConnectionFactory factory;
+    private final Config config;
+    //one permit per connection that may still be borrowed
+    private final Semaphore permits;
+    //most recently returned first, so the warmest connections are reused
+    private final Deque<Pooled> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private static final class Pooled {
+        final Connection connection;
+        final long createdAt;
+        long returnedAt;
+
+        Pooled(Connection connection, long now) {
+            this.connection = connection;
+            this.createdAt = now;
+            this.returnedAt = now;
+        }
+    }
+
+    public ConnectionPool(ConnectionFactory factory, Config config) {
+        if (config.maxSize() < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.factory = factory;
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize(), true);
+    }
+
+    /**
+     * Borrows a connection. Close it to give it back.
+     *
+     * @throws SQLException if no connection frees up within the acquire timeout,
+     *                      the pool is closed, or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.acquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + config.acquireTimeoutMs() + "ms waiting for a connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection", e);
+        }
+        try {
+            Pooled pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new Pooled(factory.open(), System.currentTimeMillis());
+                created.incrementAndGet();
+            }
+            recordWait(System.nanoTime() - start);
+            return lend(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return current counts and wait times
+     */
+    public Metrics metrics() {
+        long count = acquired.get();
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Metrics(config.maxSize() - permits.availablePermits(), idleCount, config.maxSize(), count,
+                created.get(), timeouts.get(), (count == 0) ? 0 : totalWaitNanos.get() / count / 1_000,
+                maxWaitNanos.get() / 1_000);
+    }
+
+    /**
+     * Closes the idle connections. Borrowed connections are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        synchronized (idle) {
+            closed = true;
+            for (Pooled pooled : idle) {
+                closeQuietly(pooled.connection);
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * @return a reusable idle connection, or null if there is none
+     */
+    private Pooled takeIdle() throws SQLException {
+        while (true) {
+            Pooled pooled;
+            synchronized (idle) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (now - pooled.createdAt >= config.maxLifetimeMs()) {
+                closeQuietly(pooled.connection);
+            }
+            else if (now - pooled.returnedAt >= config.validateAfterMs()
+                    && !isValid(pooled.connection)) {
+                closeQuietly(pooled.connection);
+            }
+            else {
+                return pooled;
+            }
+        }
+    }
+
+    private void giveBack(Pooled pooled) {
+        try {
+            boolean reusable = !pooled.connection.isClosed()
+                    && System.currentTimeMillis() - pooled.createdAt < config.maxLifetimeMs();
+            if (reusable && !pooled.connection.getAutoCommit()) {
+                //never hand the next caller someone else's open transaction
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            synchronized (idle) {
+                if (reusable && !closed) {
+                    pooled.returnedAt = System.currentTimeMillis();
+                    idle.addFirst(pooled);
+                    return;
+                }
+            }
+            closeQuietly(pooled.connection);
+        } catch (SQLException e) {
+            closeQuietly(pooled.connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection lend(Pooled pooled) {
+        acquired.incrementAndGet();
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned;
+
+            @Override
+            public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            giveBack(pooled);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || pooled.connection.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled " + pooled.connection;
+                    default:
+                        if (returned) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                }
+                try {
+                    return method.invoke(pooled.connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(config.validationTimeoutS());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            //the connection is being thrown away anyway
+        }
+    }
+}
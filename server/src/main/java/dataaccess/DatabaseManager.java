@@ -8,6 +8,7 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -30,9 +31,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * Borrows a connection to the database from the pool, with the catalog set
+     * based upon the properties specified in db.properties. Connections to the
+     * database should be short-lived, and you must close the connection when you
+     * are done with it, which gives it back to the pool.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
@@ -44,14 +46,30 @@ public class DatabaseManager {
     static Connection getConnection() throws DataAccessException {
         try {
             //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return pool.getConnection();
         } catch (SQLException ex) {
             throw new DataAccessException("failed to get connection", ex);
         }
     }
 
+    /**
+     * @return active and idle connection counts and wait times of the connection pool
+     */
+    public static ConnectionPool.Metrics poolMetrics() {
+        return pool.metrics();
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        try {
+            conn.setCatalog(databaseName);
+        } catch (SQLException ex) {
+            conn.close();
+            throw ex;
+        }
+        return conn;
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -73,5 +91,20 @@ public class DatabaseManager {
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
         connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        pool = new ConnectionPool(DatabaseManager::openConnection, poolConfig(props));
+    }
+
+    /**
+     * Reads the optional db.pool.* properties, falling back to {@link ConnectionPool.Config#DEFAULT}
+     */
+    static ConnectionPool.Config poolConfig(Properties props) {
+        var defaults = ConnectionPool.Config.DEFAULT;
+        return new ConnectionPool.Config(
+                Integer.parseInt(props.getProperty("db.pool.maxSize", String.valueOf(defaults.maxSize()))),
+                Long.parseLong(props.getProperty("db.pool.acquireTimeoutMs", String.valueOf(defaults.acquireTimeoutMs()))),
+                Long.parseLong(props.getProperty("db.pool.maxLifetimeMs", String.valueOf(defaults.maxLifetimeMs()))),
+                Long.parseLong(props.getProperty("db.pool.validateAfterMs", String.valueOf(defaults.validateAfterMs()))),
+                Integer.parseInt(props.getProperty("db.pool.validationTimeoutS",
+                        String.valueOf(defaults.validationTimeoutS()))));
     }
 }
@@ -1,13 +1,49 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveLog;
 import model.GameData;
 import java.util.HashSet;
+import java.util.List;
 
 public interface GameAccess {
     void createGame(GameData game) throws Exception;
     GameData getGame(int gameID) throws Exception;
     boolean gameExists(int gameID) throws Exception;
     void updateGame(GameData game) throws Exception;
+    /**
+     * Records a move made in a game
+     *
+     * @param game the game after the move
+     * @param move the move that was made
+     */
+    void addMove(GameData game, ChessMove move) throws Exception;
+    /**
+     * @return every move made in the game, in order
+     */
+    List<ChessMove> getMoves(int gameID) throws Exception;
+    /**
+     * @return the logged moves of a game with the position they start from, which is the
+     *         initial position when the store logged every move, or null if there is no such game
+     */
+    default MoveLog getMoveLog(int gameID) throws Exception {
+        return gameExists(gameID) ? new MoveLog(new ChessGame(), 1, getMoves(gameID)) : null;
+    }
+    /**
+     * Makes several updateGame and addMove writes in order, in one transaction
+     * where the store has transactions
+     */
+    default void writeBatch(List<GameWrite> writes) throws Exception {
+        for (GameWrite write : writes) {
+            if (write.move() == null) {
+                updateGame(write.game());
+            }
+            else {
+                addMove(write.game(), write.move());
+            }
+        }
+    }
     HashSet<GameData> listGames() throws Exception;
     void clear() throws Exception;
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.GameData;
+
+/**
+ * One write to a game, as made by {@link GameAccess#updateGame} or {@link GameAccess#addMove}
+ *
+ * @param game the game after the write
+ * @param move the move made, or null to store the whole game
+ */
+public record GameWrite(GameData game, ChessMove move) {
+}
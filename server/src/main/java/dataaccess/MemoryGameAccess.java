@@ -1,10 +1,16 @@
 package dataaccess;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import chess.ChessMove;
 import model.GameData;
 
 public class MemoryGameAccess implements GameAccess{
     HashSet<GameData> db;
+    Map<Integer, List<ChessMove>> moves = new HashMap<>();
     public MemoryGameAccess() {
         db = new HashSet<>(16);
     }
@@ -40,17 +46,31 @@ public class MemoryGameAccess implements GameAccess{
     }
 
     @Override
-    public void updateGame(GameData game) {
-        try {
-            db.remove(getGame(game.gameID()));
-            db.add(game);
-        } catch (Exception e) {
-            db.add(game);
+    public void updateGame(GameData game) throws ConflictException {
+        GameData current = getGame(game.gameID());
+        if (current != null && current.version() != game.version()) {
+            throw new ConflictException(game.gameID());
         }
+        //games are changed in place, so their hash codes cannot be trusted to find them
+        db.removeIf(stored -> stored.gameID() == game.gameID());
+        db.add(new GameData(game.game(), game.gameID(), game.gameName(), game.whiteUsername(), game.blackUsername(),
+                game.version() + 1));
+    }
+
+    @Override
+    public void addMove(GameData game, ChessMove move) throws ConflictException {
+        updateGame(game);
+        moves.computeIfAbsent(game.gameID(), id -> new ArrayList<>()).add(move);
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) {
+        return new ArrayList<>(moves.getOrDefault(gameID, List.of()));
     }
 
     @Override
     public void clear() throws Exception {
         db = new HashSet<>(16);
+        moves = new HashMap<>();
     }
 }
\ No newline at end of file
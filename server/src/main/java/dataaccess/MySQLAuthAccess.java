@@ -3,21 +3,10 @@ package dataaccess;
 import model.AuthData;
 import java.sql.*;
 import static dataaccess.MySQLHelper.executeUpdate;
-import static dataaccess.MySQLHelper.configureDatabase;
 
 public class MySQLAuthAccess implements AuthAccess {
-    private final String[] createAuthStatement = {
-        """
-        CREATE TABLE IF NOT EXISTS auth (
-            authToken VARCHAR(255) NOT NULL,                
-            username VARCHAR(255) NOT NULL,
-            PRIMARY KEY (authToken)
-        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
-        """
-    };
-
     public MySQLAuthAccess() throws DataAccessException {
-        configureDatabase(createAuthStatement);
+        SchemaMigrations.migrate();
     }
 
     @Override
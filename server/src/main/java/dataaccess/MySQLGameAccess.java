@@ -2,34 +2,38 @@ package dataaccess;
 
 import model.GameData;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-
-import com.google.gson.Gson;
+import java.util.List;
+import java.util.Map;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Move;
+import chess.MoveLog;
 
 import static dataaccess.MySQLHelper.executeUpdate;
-import static dataaccess.MySQLHelper.configureDatabase;
 
+/**
+ * Games stored as a snapshot of the game in the game row plus an append-only
+ * log of the moves in game_move. A move is a small insert; the snapshot is only
+ * rewritten every SNAPSHOT_INTERVAL plies, when the game ends, and on
+ * updateGame. Reading a game replays the moves made since its snapshot. A
+ * listed game whose logged moves no longer replay is listed at its snapshot,
+ * and GameService.validateGames reports the move.
+ * <p>
+ * Every write is a compare-and-set on the game's version column: it only
+ * succeeds if the game is still at the version it was read at, and throws
+ * {@link ConflictException} otherwise, so two writers cannot overwrite each
+ * other without locking the game between their read and write.
+ */
 public class MySQLGameAccess implements GameAccess{
-    private final String[] createGameStatement = {
-        """
-        CREATE TABLE IF NOT EXISTS game (
-            chessGame TEXT NOT NULL,
-            gameID int NOT NULL,
-            gameName VARCHAR(255) NOT NULL,
-            whiteUsername VARCHAR(255),
-            blackUsername VARCHAR(255),               
-            PRIMARY KEY (gameID),
-            INDEX(gameName),
-            INDEX(whiteUsername),
-            INDEX(blackUsername)
-        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
-        """
-    };
+    static final int SNAPSHOT_INTERVAL = 32;
 
     public MySQLGameAccess() throws DataAccessException {
-        configureDatabase(createGameStatement);
+        SchemaMigrations.migrate();
     }
 
     @Override
@@ -39,12 +43,16 @@ public class MySQLGameAccess implements GameAccess{
         }
         try {
             executeUpdate(
-                "INSERT INTO game (chessGame, gameId, gameName, whiteUsername, blackUsername) VALUES (?, ?, ?, ? ,?)", 
-                new Gson().toJson(game.game()), 
+                """
+                INSERT INTO game (chessGame, gameId, gameName, whiteUsername, blackUsername, fullMoveLog)
+                VALUES (?, ?, ?, ? ,?, ?)
+                """, 
+                game.game().toStoredJson(), 
                 game.gameID(), 
                 game.gameName(), 
                 game.whiteUsername(), 
-                game.blackUsername());
+                game.blackUsername(),
+                new ChessGame().equals(game.game()));
         } catch (DataAccessException e) {
             throw new DataAccessException(String.format("Error creating game: %s", e.getMessage()));
         }    
@@ -52,18 +60,22 @@ public class MySQLGameAccess implements GameAccess{
 
     @Override
     public GameData getGame(int gameID) throws Exception {
-        String statement = "SELECT chessGame, gameId, gameName, whiteUsername, blackUsername FROM game WHERE gameId=?";
+        String statement =
+          "SELECT chessGame, gameId, gameName, whiteUsername, blackUsername, snapshotPly, version FROM game WHERE gameId=?";
         try (Connection conn = DatabaseManager.getConnection();
           PreparedStatement ps = conn.prepareStatement(statement)) {
             ps.setInt(1, gameID);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
+                    ChessGame game = ChessGame.fromStoredJson(rs.getString("chessGame"));
+                    replay(game, movesSince(conn, gameID, rs.getInt("snapshotPly")));
                     return new GameData(
-                      new Gson().fromJson(rs.getString("chessGame"), ChessGame.class), 
+                      game, 
                       rs.getInt("gameId"), 
                       rs.getString("gameName"), 
                       rs.getString("whiteUsername"), 
-                      rs.getString("blackUsername")
+                      rs.getString("blackUsername"),
+                      rs.getInt("version")
                     );
                 }
             }
@@ -80,34 +92,124 @@ public class MySQLGameAccess implements GameAccess{
 
     @Override
     public void updateGame(GameData game) throws Exception {
-        if (getGame(game.gameID()) == null) {
-            throw new DataAccessException("Error: game with gameID " + game.gameID() + " does not exist");        
+        writeBatch(List.of(new GameWrite(game, null)));
+    }
+
+    @Override
+    public void addMove(GameData game, ChessMove move) throws Exception {
+        writeBatch(List.of(new GameWrite(game, move)));
+    }
+
+    /**
+     * Makes all the writes in one transaction, so either every one of them is stored or none is
+     *
+     * @throws ConflictException if a write's version is not the stored one
+     */
+    @Override
+    public void writeBatch(List<GameWrite> writes) throws Exception {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (GameWrite write : writes) {
+                    if (write.move() == null) {
+                        writeSnapshot(conn, write.game());
+                    }
+                    else {
+                        appendMove(conn, write.game(), write.move());
+                    }
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (ConflictException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Error writing games: %s", e.getMessage()));
         }
+    }
 
-        executeUpdate(
-          "UPDATE game SET chessGame=?, gameName=?, whiteUsername=?, blackUsername=? WHERE gameId=?", 
-          new Gson().toJson(game.game()),
-          game.gameName(),  
-          game.whiteUsername(), 
-          game.blackUsername(), 
-          game.gameID()
-        );
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws Exception {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            List<ChessMove> moves = new ArrayList<>();
+            for (int move : movesSince(conn, gameID, 0)) {
+                moves.add(Move.toChessMove(move));
+            }
+            return moves;
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Error retrieving moves: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Games created before moves were logged have no log of their first moves,
+     * so theirs starts at the current snapshot
+     */
+    @Override
+    public MoveLog getMoveLog(int gameID) throws Exception {
+        try (Connection conn = DatabaseManager.getConnection();
+          PreparedStatement ps = conn.prepareStatement("SELECT chessGame, snapshotPly, fullMoveLog FROM game WHERE gameId=?")) {
+            ps.setInt(1, gameID);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                boolean full = rs.getBoolean("fullMoveLog");
+                int after = full ? 0 : rs.getInt("snapshotPly");
+                ChessGame start = full ? new ChessGame() : ChessGame.fromStoredJson(rs.getString("chessGame"));
+                List<ChessMove> moves = new ArrayList<>();
+                for (int move : movesSince(conn, gameID, after)) {
+                    moves.add(Move.toChessMove(move));
+                }
+                return new MoveLog(start, after + 1, moves);
+            }
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Error retrieving moves: %s", e.getMessage()));
+        }
     }
 
     @Override
     public HashSet<GameData> listGames() throws Exception {
         HashSet<GameData> result = new HashSet<>(16);
         try (Connection conn = DatabaseManager.getConnection()) {
-            String statement = "SELECT chessGame, gameId, gameName, whiteUsername, blackUsername FROM game";
+            //the moves made since each game's snapshot, in one query for every game
+            Map<Integer, List<Integer>> tails = new HashMap<>();
+            String tailStatement = """
+              SELECT m.gameID, m.move FROM game_move m JOIN game g ON g.gameID = m.gameID
+              WHERE m.ply > g.snapshotPly ORDER BY m.gameID, m.ply
+              """;
+            try (PreparedStatement ps = conn.prepareStatement(tailStatement);
+              ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    tails.computeIfAbsent(rs.getInt("gameID"), id -> new ArrayList<>()).add(rs.getInt("move"));
+                }
+            }
+            String statement = "SELECT chessGame, gameId, gameName, whiteUsername, blackUsername, version FROM game";
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
+                        ChessGame game = ChessGame.fromStoredJson(rs.getString("chessGame"));
+                        int gameID = rs.getInt("gameId");
+                        List<Integer> tail = tails.get(gameID);
+                        //one game with a broken move log must not hide every other game
+                        if (tail != null) {
+                            try {
+                                ChessGame replayed = new ChessGame(game);
+                                replay(replayed, tail);
+                                game = replayed;
+                            } catch (DataAccessException e) {
+                                System.err.println("Listing game " + gameID + " at its snapshot: " + e.getMessage());
+                            }
+                        }
                         result.add(new GameData(
-                          new Gson().fromJson(rs.getString("chessGame"), ChessGame.class), 
+                          game, 
                           rs.getInt("gameId"), 
                           rs.getString("gameName"), 
                           rs.getString("whiteUsername"), 
-                          rs.getString("blackUsername")
+                          rs.getString("blackUsername"),
+                          rs.getInt("version")
                         ));
                     }
                 }
@@ -120,7 +222,108 @@ public class MySQLGameAccess implements GameAccess{
 
     @Override
     public void clear() throws Exception {
-        var statement = "TRUNCATE game";
-        executeUpdate(statement);
+        executeUpdate("TRUNCATE game_move");
+        executeUpdate("TRUNCATE game");
+    }
+
+    private static void writeSnapshot(Connection conn, GameData game) throws SQLException, DataAccessException {
+        try (PreparedStatement ps = conn.prepareStatement(
+          """
+          UPDATE game SET chessGame=?, snapshotPly=moveCount, gameName=?, whiteUsername=?, blackUsername=?,
+          version=version+1 WHERE gameId=? AND version=?
+          """)) {
+            ps.setString(1, game.game().toStoredJson());
+            ps.setString(2, game.gameName());
+            ps.setString(3, game.whiteUsername());
+            ps.setString(4, game.blackUsername());
+            ps.setInt(5, game.gameID());
+            ps.setInt(6, game.version());
+            if (ps.executeUpdate() == 0) {
+                throw exists(conn, game.gameID()) ? new ConflictException(game.gameID())
+                  : new DataAccessException("Error: game with gameID " + game.gameID() + " does not exist");
+            }
+        }
+    }
+
+    private static boolean exists(Connection conn, int gameID) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM game WHERE gameId=?")) {
+            ps.setInt(1, gameID);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static void appendMove(Connection conn, GameData game, ChessMove move) throws SQLException, DataAccessException {
+        int ply;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT moveCount, version FROM game WHERE gameId=? FOR UPDATE")) {
+            ps.setInt(1, game.gameID());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new DataAccessException("Error: game with gameID " + game.gameID() + " does not exist");
+                }
+                if (rs.getInt("version") != game.version()) {
+                    throw new ConflictException(game.gameID());
+                }
+                ply = rs.getInt("moveCount") + 1;
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO game_move (gameID, ply, move) VALUES (?, ?, ?)")) {
+            ps.setInt(1, game.gameID());
+            ps.setInt(2, ply);
+            ps.setInt(3, Move.of(move));
+            ps.executeUpdate();
+        }
+        //a finished game is never replayed past, so snapshot it along with every so many plies
+        if (game.game().gameOver || ply % SNAPSHOT_INTERVAL == 0) {
+            try (PreparedStatement ps = conn.prepareStatement(
+              "UPDATE game SET moveCount=?, chessGame=?, snapshotPly=?, version=? WHERE gameId=?")) {
+                ps.setInt(1, ply);
+                ps.setString(2, game.game().toStoredJson());
+                ps.setInt(3, ply);
+                ps.setInt(4, game.version() + 1);
+                ps.setInt(5, game.gameID());
+                ps.executeUpdate();
+            }
+        }
+        else {
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE game SET moveCount=?, version=? WHERE gameId=?")) {
+                ps.setInt(1, ply);
+                ps.setInt(2, game.version() + 1);
+                ps.setInt(3, game.gameID());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * @return the encoded moves of a game after the given ply, in order
+     */
+    private static List<Integer> movesSince(Connection conn, int gameID, int ply) throws SQLException {
+        List<Integer> moves = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+          "SELECT move FROM game_move WHERE gameID=? AND ply>? ORDER BY ply")) {
+            ps.setInt(1, gameID);
+            ps.setInt(2, ply);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(rs.getInt("move"));
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Brings a snapshot up to date by making the logged moves on it
+     */
+    private static void replay(ChessGame game, List<Integer> moves) throws DataAccessException {
+        for (int move : moves) {
+            try {
+                game.makeMove(Move.toChessMove(move));
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Error: logged move " + Move.toString(move) + " is not legal", e);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -24,17 +24,4 @@ public class MySQLHelper {
             throw new DataAccessException(String.format("Error: Unable to update database: %s", e.getMessage()));
         }
     }
-
-    public static void configureDatabase(String[] createStatements) throws DataAccessException {
-        DatabaseManager.createDatabase();
-        try (Connection conn = DatabaseManager.getConnection()) {
-            for (String statement : createStatements) {
-                try (var preparedStatement = conn.prepareStatement(statement)) {
-                    preparedStatement.executeUpdate();
-                }
-            }
-        } catch (Exception e) {
-            throw new DataAccessException(String.format("Error: Unable to configure database: %s", e.getMessage()));
-        }
-    }
 }
\ No newline at end of file
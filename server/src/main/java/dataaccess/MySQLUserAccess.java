@@ -4,23 +4,10 @@ import model.UserData;
 import java.sql.*;
 import org.mindrot.jbcrypt.BCrypt;
 import static dataaccess.MySQLHelper.executeUpdate;
-import static dataaccess.MySQLHelper.configureDatabase;
 
 public class MySQLUserAccess implements UserAccess{
-    private final String[] createUserStatement = {
-        """
-        CREATE TABLE IF NOT EXISTS  user (
-            username VARCHAR(255) NOT NULL,
-            password VARCHAR(255) NOT NULL,
-            email VARCHAR(255) NOT NULL,
-            PRIMARY KEY (username),
-            INDEX(email)
-        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
-        """
-    };
-
     public MySQLUserAccess() throws DataAccessException {
-        configureDatabase(createUserStatement);
+        SchemaMigrations.migrate();
     }
 
     @Override
@@ -0,0 +1,158 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Brings the database schema up to date, once per server process.
+ * <p>
+ * Each migration has a version number and the statements that take the schema
+ * from the previous version to it. The versions already applied are recorded
+ * in the schema_version table, so a migration runs once per database, and a
+ * MySQL named lock keeps two servers starting together from applying the same
+ * one twice. Add a migration to the end of {@link #MIGRATIONS} to change the
+ * schema; never edit one that has shipped.
+ */
+public class SchemaMigrations {
+    /**
+     * @param version     schema version after the migration, one more than the one before it
+     * @param description what the migration changes
+     * @param statements  DDL to run, in order
+     */
+    record Migration(int version, String description, String... statements) {
+    }
+
+    static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "user, auth and game tables",
+            """
+            CREATE TABLE IF NOT EXISTS  user (
+                username VARCHAR(255) NOT NULL,
+                password VARCHAR(255) NOT NULL,
+                email VARCHAR(255) NOT NULL,
+                PRIMARY KEY (username),
+                INDEX(email)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS auth (
+                authToken VARCHAR(255) NOT NULL,
+                username VARCHAR(255) NOT NULL,
+                PRIMARY KEY (authToken)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game (
+                chessGame TEXT NOT NULL,
+                gameID int NOT NULL,
+                gameName VARCHAR(255) NOT NULL,
+                whiteUsername VARCHAR(255),
+                blackUsername VARCHAR(255),
+                PRIMARY KEY (gameID),
+                INDEX(gameName),
+                INDEX(whiteUsername),
+                INDEX(blackUsername)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+            """),
+        new Migration(2, "append-only move log with periodic game snapshots",
+            """
+            ALTER TABLE game
+                ADD COLUMN moveCount int NOT NULL DEFAULT 0,
+                ADD COLUMN snapshotPly int NOT NULL DEFAULT 0
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_move (
+                gameID int NOT NULL,
+                ply int NOT NULL,
+                move int NOT NULL,
+                PRIMARY KEY (gameID, ply)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+            """),
+        new Migration(3, "version column for compare-and-set game writes",
+            "ALTER TABLE game ADD COLUMN version int NOT NULL DEFAULT 0"),
+        //games from before migration 2 began logging mid-game, so only new games get a full log
+        new Migration(4, "mark games whose move log starts at the initial position",
+            "ALTER TABLE game ADD COLUMN fullMoveLog BOOLEAN NOT NULL DEFAULT FALSE")
+    );
+
+    private static final String CREATE_VERSION_TABLE = """
+        CREATE TABLE IF NOT EXISTS schema_version (
+            version int NOT NULL,
+            description VARCHAR(255) NOT NULL,
+            appliedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            PRIMARY KEY (version)
+        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+        """;
+    private static final String LOCK_NAME = "chess_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    private static boolean migrated;
+
+    /**
+     * Creates the database if needed and applies the migrations it has not had yet.
+     * Only the first call in a process touches the database.
+     */
+    public static synchronized void migrate() throws DataAccessException {
+        if (migrated) {
+            return;
+        }
+        DatabaseManager.createDatabase();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            lock(conn);
+            try {
+                execute(conn, CREATE_VERSION_TABLE);
+                for (Migration migration : pending(currentVersion(conn))) {
+                    for (String statement : migration.statements()) {
+                        execute(conn, statement);
+                    }
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                        ps.setInt(1, migration.version());
+                        ps.setString(2, migration.description());
+                        ps.executeUpdate();
+                    }
+                }
+            } finally {
+                execute(conn, "DO RELEASE_LOCK('" + LOCK_NAME + "')");
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(String.format("Error: Unable to migrate database: %s", e.getMessage()), e);
+        }
+        migrated = true;
+    }
+
+    /**
+     * @return the migrations after the given version, in order
+     */
+    static List<Migration> pending(int currentVersion) {
+        return MIGRATIONS.stream().filter(migration -> migration.version() > currentVersion).toList();
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another server to finish migrating");
+                }
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String statement) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.executeUpdate();
+        }
+    }
+}
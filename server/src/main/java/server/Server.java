@@ -1,13 +1,28 @@
 package server;
 
 import dataaccess.*;
+import engine.OpeningBook;
+import engine.Tablebase;
 import io.javalin.Javalin;
 import service.*;
 import io.javalin.json.JavalinGson;
 import server.handler.*;
+import server.analysis.AnalysisPool;
 import server.websocket.WebSocketHandler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
 
 public class Server {
+    //endgame tables shipped in the tablebases resource directory
+    private static final List<String> SHIPPED_TABLEBASES = List.of("KPK", "KQK", "KRK");
+
     UserAccess userAccess;
     AuthAccess authAccess;
     GameAccess gameAccess;
@@ -16,8 +31,11 @@ public class Server {
     UserHandler userHandler;
     GameHandler gameHandler;
     ClearHandler clearHandler;
+    MetricsHandler metricsHandler;
 
     private Javalin server;
+    private final AnalysisPool analysisPool;
+    private CachedGameAccess gameCache;
     private final WebSocketHandler webSocketHandler;
 
 
@@ -26,9 +44,16 @@ public class Server {
             authAccess = new MemoryAuthAccess();
             gameAccess = new MemoryGameAccess();
         try {
+            //schema setup happens here once; the DAOs below are shared by every request
+            SchemaMigrations.migrate();
             userAccess = new MySQLUserAccess();
             authAccess = new MySQLAuthAccess();
-            gameAccess = new MySQLGameAccess();
+            //moves are played against memory and written to MySQL in batches
+            gameCache = new CachedGameAccess(new MySQLGameAccess(),
+                    Duration.ofMillis(Long.getLong("chess.flushIntervalMs",
+                            CachedGameAccess.DEFAULT_FLUSH_INTERVAL.toMillis())),
+                    CachedGameAccess.Durability.valueOf(System.getProperty("chess.durability", "SYNC_ON_GAME_END")));
+            gameAccess = gameCache;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -38,7 +63,11 @@ public class Server {
         gameHandler = new GameHandler(gameService);
         clearHandler = new ClearHandler(gameService, userService);
 
-        webSocketHandler = new WebSocketHandler();
+        analysisPool = new AnalysisPool();
+        metricsHandler = new MetricsHandler(userService, analysisPool);
+        webSocketHandler = new WebSocketHandler(authAccess, userAccess, gameAccess, analysisPool,
+                loadOpeningBook(), loadTablebases());
+        gameCache.setConflictListener(webSocketHandler::reloadGame);
 
         server = Javalin.create(config -> {
             config.staticFiles.add("web");
@@ -52,6 +81,9 @@ public class Server {
         server.get("/game", gameHandler::listGames);
         server.get("/game/{gameID}", gameHandler::observeGame);
         server.put("/game", gameHandler::joinGame);
+        server.get("/analysis/metrics", metricsHandler::analysisMetrics);
+        server.get("/db/metrics", metricsHandler::databaseMetrics);
+        server.get("/db/validation", gameHandler::validateGames);
 
         server.ws("ws", ws -> {
             ws.onConnect(ctx -> webSocketHandler.handleConnect(ctx));
@@ -62,6 +94,7 @@ public class Server {
         server.exception(BadRequestException.class, (e, ctx) -> ctx.status(400).json(new ErrorResponse("Error: bad request")));
         server.exception(UnauthorizedException.class, (e, ctx) -> ctx.status(401).json(new ErrorResponse("Error: unauthorized")));
         server.exception(ForbiddenException.class, (e, ctx) -> ctx.status(403).json(new ErrorResponse("Error: forbidden")));
+        server.exception(ConflictException.class, (e, ctx) -> ctx.status(409).json(new ErrorResponse("Error: conflict")));
         server.exception(DataAccessException.class, (e, ctx) -> ctx.status(500).json(new ErrorResponse("Internal Server Error")));
         server.exception(Exception.class, (e, ctx) -> ctx.status(500).json(new ErrorResponse("Internal Server Error")));
     }
@@ -75,6 +108,80 @@ public class Server {
         if (server != null) {
             server.stop();
         }
+        analysisPool.shutdown();
+        try {
+            gameCache.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Memory-maps the opening book named by the chess.book system property, or else the
+     * book.bin resource. A resource inside a jar is copied to a temporary file first,
+     * since only files can be mapped; point chess.book at a shared file to let every
+     * server process on a host share one copy through the page cache.
+     */
+    private static OpeningBook loadOpeningBook() {
+        try {
+            String configured = System.getProperty("chess.book");
+            if (configured != null) {
+                return OpeningBook.open(Path.of(configured));
+            }
+            URL resource = Server.class.getClassLoader().getResource("book.bin");
+            if (resource == null) {
+                return OpeningBook.empty();
+            }
+            if ("file".equals(resource.getProtocol())) {
+                return OpeningBook.open(Path.of(resource.toURI()));
+            }
+            Path copy = Files.createTempFile("book", ".bin");
+            copy.toFile().deleteOnExit();
+            try (InputStream in = resource.openStream()) {
+                Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return OpeningBook.open(copy);
+        } catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+            return OpeningBook.empty();
+        }
+    }
+
+    /**
+     * Memory-maps the endgame tables in the directory named by the chess.tablebases
+     * system property, or else the tablebases resource directory, copied out like the
+     * opening book when it is inside a jar. Larger tables can be generated with
+     * TablebaseGenerator into a directory that chess.tablebases points at.
+     */
+    private static Tablebase loadTablebases() {
+        try {
+            String configured = System.getProperty("chess.tablebases");
+            if (configured != null) {
+                return Tablebase.open(Path.of(configured));
+            }
+            URL resource = Server.class.getClassLoader().getResource("tablebases");
+            if (resource == null) {
+                return Tablebase.empty();
+            }
+            if ("file".equals(resource.getProtocol())) {
+                return Tablebase.open(Path.of(resource.toURI()));
+            }
+            Path copy = Files.createTempDirectory("tablebases");
+            copy.toFile().deleteOnExit();
+            for (String name : SHIPPED_TABLEBASES) {
+                Path file = copy.resolve(name + ".tb");
+                file.toFile().deleteOnExit();
+                try (InputStream in = Server.class.getClassLoader().getResourceAsStream("tablebases/" + name + ".tb")) {
+                    if (in != null) {
+                        Files.copy(in, file);
+                    }
+                }
+            }
+            return Tablebase.open(copy);
+        } catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+            return Tablebase.empty();
+        }
     }
 
     private static class ErrorResponse {
@@ -0,0 +1,13 @@
+package server.analysis;
+
+import chess.ChessGame;
+
+/**
+ * A request to search one position
+ *
+ * @param username user who asked, whose quota the job counts against
+ * @param gameID   game the position comes from
+ * @param position position to search, which the job does not change
+ */
+public record AnalysisJob(String username, int gameID, ChessGame position) {
+}
@@ -0,0 +1,144 @@
+package server.analysis;
+
+import chess.ChessGame;
+import engine.Engine;
+import engine.SearchResult;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import websocket.messages.AnalysisMessage;
+
+/**
+ * Runs engine searches for hints and game review on a fixed pool of worker
+ * threads, apart from the Javalin request threads and the websocket handler,
+ * so a search never holds up other messages.
+ * <p>
+ * Jobs wait in a bounded queue. When it is full a submission is turned away
+ * at once instead of piling up work the server cannot finish, and each user
+ * may only have a few jobs queued or running at a time.
+ */
+public class AnalysisPool {
+    public static final int DEFAULT_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_PER_USER_LIMIT = 2;
+    public static final Duration DEFAULT_TIME_BUDGET = Duration.ofSeconds(1);
+
+    private static final int TABLE_MEGABYTES = 64;
+
+    public enum Submission {
+        ACCEPTED,
+        QUEUE_FULL,
+        QUOTA_EXCEEDED,
+        SHUT_DOWN
+    }
+
+    /**
+     * A snapshot of the pool, for the metrics endpoint
+     *
+     * @param queueDepth    jobs waiting for a worker
+     * @param queueCapacity most jobs that can wait at once
+     * @param activeWorkers workers searching right now
+     * @param completed     jobs finished since the server started
+     * @param rejected      submissions turned away for a full queue or quota
+     * @param failed        jobs that ended in an error
+     */
+    public record Metrics(int queueDepth, int queueCapacity, int activeWorkers,
+                          long completed, long rejected, long failed) {
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final int queueCapacity;
+    private final int perUserLimit;
+    private final Duration timeBudget;
+    //workers search one thread each and share the engine's transposition table
+    private final Engine engine;
+    //jobs queued or running, by username
+    private final ConcurrentHashMap<String, Integer> pending = new ConcurrentHashMap<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public AnalysisPool() {
+        this(DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY, DEFAULT_PER_USER_LIMIT, DEFAULT_TIME_BUDGET);
+    }
+
+    public AnalysisPool(int workerCount, int queueCapacity, int perUserLimit, Duration timeBudget) {
+        this.queueCapacity = queueCapacity;
+        this.perUserLimit = perUserLimit;
+        this.timeBudget = timeBudget;
+        this.engine = new Engine(TABLE_MEGABYTES, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a job. The result is passed to onResult on a worker thread.
+     *
+     * @return ACCEPTED if the job was queued, otherwise why it was turned away
+     */
+    public Submission submit(AnalysisJob job, Consumer<AnalysisMessage> onResult) {
+        if (workers.isShutdown()) {
+            return Submission.SHUT_DOWN;
+        }
+        if (pending.merge(job.username(), 1, Integer::sum) > perUserLimit) {
+            release(job.username());
+            rejected.incrementAndGet();
+            return Submission.QUOTA_EXCEEDED;
+        }
+        try {
+            workers.execute(() -> run(job, onResult));
+        } catch (RejectedExecutionException e) {
+            release(job.username());
+            if (workers.isShutdown()) {
+                return Submission.SHUT_DOWN;
+            }
+            rejected.incrementAndGet();
+            return Submission.QUEUE_FULL;
+        }
+        return Submission.ACCEPTED;
+    }
+
+    public Metrics metrics() {
+        return new Metrics(workers.getQueue().size(), queueCapacity, workers.getActiveCount(),
+                completed.get(), rejected.get(), failed.get());
+    }
+
+    /**
+     * Stops taking jobs and abandons the ones still queued
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+        engine.close();
+    }
+
+    private void run(AnalysisJob job, Consumer<AnalysisMessage> onResult) {
+        try {
+            SearchResult result = engine.search(job.position(), timeBudget, Engine.MAX_DEPTH);
+            //search scores are from the side to move's point of view
+            boolean white = job.position().getTeamTurn() == ChessGame.TeamColor.WHITE;
+            int evaluation = white ? result.score() : -result.score();
+            onResult.accept(new AnalysisMessage(job.gameID(), result.move(), evaluation, result.isMate(), result.depth()));
+            completed.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            e.printStackTrace();
+        } finally {
+            release(job.username());
+        }
+    }
+
+    private void release(String username) {
+        pending.computeIfPresent(username, (name, count) -> (count == 1) ? null : count - 1);
+    }
+}
@@ -4,6 +4,7 @@ import service.GameService;
 import com.google.gson.Gson;
 import io.javalin.http.Context;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import model.GameData;
 import dataaccess.BadRequestException;
@@ -106,4 +107,16 @@ public class GameHandler {
             ctx.status(500).json(Map.of("message", "Error: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    public void validateGames(Context ctx) throws Exception {
+        String authToken = ctx.header("authorization");
+        try {
+            Map<Integer, List<String>> invalid = gameService.validateGames(authToken);
+            ctx.status(200).json(Map.of("invalid", invalid));
+        } catch (UnauthorizedException e) {
+            ctx.status(401).json(Map.of("message", "Error: unauthorized"));
+        } catch (Exception e) {
+            ctx.status(500).json(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
+}
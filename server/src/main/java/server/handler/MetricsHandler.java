@@ -0,0 +1,47 @@
+package server.handler;
+
+import java.util.Map;
+
+import dataaccess.DatabaseManager;
+import dataaccess.UnauthorizedException;
+import io.javalin.http.Context;
+import server.analysis.AnalysisPool;
+import service.UserService;
+
+/**
+ * Serves the server's operational metrics to signed-in callers only
+ */
+public class MetricsHandler {
+
+    private final UserService userService;
+    private final AnalysisPool analysisPool;
+
+    public MetricsHandler(UserService userService, AnalysisPool analysisPool) {
+        this.userService = userService;
+        this.analysisPool = analysisPool;
+    }
+
+    public void analysisMetrics(Context ctx) throws Exception {
+        if (authorized(ctx)) {
+            ctx.status(200).json(analysisPool.metrics());
+        }
+    }
+
+    public void databaseMetrics(Context ctx) throws Exception {
+        if (authorized(ctx)) {
+            ctx.status(200).json(DatabaseManager.poolMetrics());
+        }
+    }
+
+    private boolean authorized(Context ctx) {
+        try {
+            userService.authenticate(ctx.header("authorization"));
+            return true;
+        } catch (UnauthorizedException e) {
+            ctx.status(401).json(Map.of("message", "Error: unauthorized"));
+        } catch (Exception e) {
+            ctx.status(500).json(Map.of("message", "Error: " + e.getMessage()));
+        }
+        return false;
+    }
+}
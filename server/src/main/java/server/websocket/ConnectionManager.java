@@ -25,7 +25,7 @@ public class ConnectionManager {
         for (Connection c : connections.values()) {
             if (c.session.isOpen() && c.gameID == gameID) {
                 if (!c.session.equals(excludeSession)) {
-                    c.session.getRemote().sendString(msg);
+                    sendString(c.session, msg);
                 }
             }
         }
@@ -35,11 +35,27 @@ public class ConnectionManager {
         String json = new Gson().toJson(message);
         for (Connection c : connections.values()) {
             if (c.session.isOpen() && c.gameID == gameID) {
-                c.session.getRemote().sendString(json);
+                sendString(c.session, json);
             }
         }
     }
 
+    /**
+     * Sends a message to one session. Analysis workers send from their own threads,
+     * so sends to a session are serialized; Jetty rejects overlapping blocking sends.
+     */
+    public void send(Session session, ServerMessage message) throws IOException {
+        if (session.isOpen()) {
+            sendString(session, new Gson().toJson(message));
+        }
+    }
+
+    private static void sendString(Session session, String json) throws IOException {
+        synchronized (session) {
+            session.getRemote().sendString(json);
+        }
+    }
+
     public static class Connection {
         public Session session;
         public int gameID;
@@ -16,6 +16,10 @@ import model.GameData;
 import model.UserData;
 import dataaccess.*;
 import chess.*;
+import server.analysis.AnalysisJob;
+import server.analysis.AnalysisPool;
+import engine.OpeningBook;
+import engine.Tablebase;
 
 
 import java.io.IOException;
@@ -23,8 +27,26 @@ import java.io.IOException;
 import javax.management.Notification;
 
 public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsCloseHandler {
+    //times a command is run before a conflicting write is reported to the player
+    static final int MAX_ATTEMPTS = 3;
 
     private final ConnectionManager connections = new ConnectionManager();
+    private final AuthAccess authAccess;
+    private final UserAccess userAccess;
+    private final GameAccess gameAccess;
+    private final AnalysisPool analysis;
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+
+    public WebSocketHandler(AuthAccess authAccess, UserAccess userAccess, GameAccess gameAccess,
+                            AnalysisPool analysis, OpeningBook book, Tablebase tablebase) {
+        this.authAccess = authAccess;
+        this.userAccess = userAccess;
+        this.gameAccess = gameAccess;
+        this.analysis = analysis;
+        this.book = book;
+        this.tablebase = tablebase;
+    }
 
     @Override
     public void handleConnect(WsConnectContext ctx) {
@@ -35,31 +57,57 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     @Override
     public void handleMessage(WsMessageContext ctx) {
         try {
-            Gson gson = new Gson();
-            UserGameCommand base = gson.fromJson(ctx.message(), UserGameCommand.class);
-            switch (base.getCommandType()) {
-                case CONNECT -> {
-                    UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
-                    connect(action, ctx.session);
+            //a conflict means another write got to the game first; the command is run again on the game it left
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    dispatch(ctx);
+                    return;
+                } catch (ConflictException ex) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        connections.send(ctx.session,
+                          new ErrorMessage("Error: the game was changed by another player, try again"));
+                        return;
+                    }
                 }
+            }
+        } catch (IOException | DataAccessException ex) {
+            ex.printStackTrace();
+        }
+    }
 
-                case MAKE_MOVE -> {
-                    MakeMoveCommand action = gson.fromJson(ctx.message(), MakeMoveCommand.class);
-                    makeMove(action, ctx.session);
-                }
+    private void dispatch(WsMessageContext ctx) throws IOException, DataAccessException {
+        Gson gson = new Gson();
+        UserGameCommand base = gson.fromJson(ctx.message(), UserGameCommand.class);
+        switch (base.getCommandType()) {
+            case CONNECT -> {
+                UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
+                connect(action, ctx.session);
+            }
 
-                case LEAVE -> {
-                    UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
-                    leave(action, ctx.session);
-                }
+            case MAKE_MOVE -> {
+                MakeMoveCommand action = gson.fromJson(ctx.message(), MakeMoveCommand.class);
+                makeMove(action, ctx.session);
+            }
 
-                case RESIGN -> {
-                    UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
-                    resign(action, ctx.session);
-                }
+            case LEAVE -> {
+                UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
+                leave(action, ctx.session);
+            }
+
+            case RESIGN -> {
+                UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
+                resign(action, ctx.session);
+            }
+
+            case ANALYZE -> {
+                UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
+                analyze(action, ctx.session);
+            }
+
+            case HINT -> {
+                UserGameCommand action = gson.fromJson(ctx.message(), UserGameCommand.class);
+                hint(action, ctx.session);
             }
-        } catch (IOException | DataAccessException ex) {
-            ex.printStackTrace();
         }
     }
 
@@ -69,7 +117,6 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     }
 
     private void connect(UserGameCommand cmd, Session session) throws IOException, DataAccessException {
-        AuthAccess authAccess = new MySQLAuthAccess();
         AuthData authData;
         try {
             authData = authAccess.getAuth(cmd.getAuthToken());
@@ -77,11 +124,10 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             throw new DataAccessException(e.getMessage());
         }
         if (authData == null) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: invalid authToken")));
+            connections.send(session, new ErrorMessage("Error: invalid authToken"));
             return;
         }
 
-        UserAccess userAccess = new MySQLUserAccess();
         UserData userData;
         try {
             userData = userAccess.getUser(authData.username());
@@ -89,11 +135,10 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             throw new DataAccessException(e.getMessage());
         }
         if (userData == null) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: invalid authToken")));
+            connections.send(session, new ErrorMessage("Error: invalid authToken"));
             return;
         }
 
-        GameAccess gameAccess = new MySQLGameAccess();
         GameData gameData;
         try { 
             gameData = gameAccess.getGame(cmd.getGameID());
@@ -101,7 +146,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             throw new DataAccessException(e.getMessage());
         }
         if (gameData == null) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: invalid gameID")));
+            connections.send(session, new ErrorMessage("Error: invalid gameID"));
             return;
         }
 
@@ -109,7 +154,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         boolean isPlayer = username.equals(gameData.whiteUsername()) || username.equals(gameData.blackUsername());
 
         connections.add(session, cmd.getGameID(), cmd.getAuthToken(), username, isPlayer);
-        session.getRemote().sendString(new Gson().toJson(new LoadGameMessage(gameData.game(), gameData.gameID())));
+        connections.send(session, new LoadGameMessage(gameData.game(), gameData.gameID()));
 
         String note;
         if (isPlayer) {
@@ -128,9 +173,6 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             return;
         }
 
-        connections.remove(session);
-
-        GameAccess gameAccess = new MySQLGameAccess();
         GameData gameData;
         try {
             gameData = gameAccess.getGame(connection.gameID);
@@ -146,7 +188,10 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
                       gameData.gameID(),
                       gameData.gameName(),
                       null,
-                      gameData.blackUsername()));
+                      gameData.blackUsername(),
+                      gameData.version()));
+                } catch(ConflictException e) {
+                    throw e;
                 } catch(Exception e) {
                     throw new DataAccessException(e.getMessage());
                 }
@@ -158,14 +203,19 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
                       gameData.gameID(),
                       gameData.gameName(),
                       gameData.whiteUsername(),
-                      null));  
+                      null,
+                      gameData.version()));
+                } catch(ConflictException e) {
+                    throw e;
                 } catch(Exception e) {
                     throw new DataAccessException(e.getMessage());
                 }
             }
         }
 
-        connections.broadcast(session, new NotificationMessage(connection.username + " left the game"), gameData.gameID());
+        //only once the seat is given up, so a conflict can run the leave again
+        connections.remove(session);
+        connections.broadcast(session, new NotificationMessage(connection.username + " left the game"), connection.gameID);
     }
 
     private void resign(UserGameCommand cmd, Session session) throws DataAccessException, IOException {
@@ -173,7 +223,6 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         if (info == null) {
             return;
         }
-        GameAccess gameAccess = new MySQLGameAccess();
         GameData gameData;
         try { 
             gameData = gameAccess.getGame(info.gameID);
@@ -183,13 +232,13 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         ChessGame game = gameData.game();
 
         if (game.gameOver) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Game is already over.")));
+            connections.send(session, new ErrorMessage("Game is already over."));
             return;
         }
 
         boolean isPlayer = info.username.equals(gameData.whiteUsername()) || info.username.equals(gameData.blackUsername());
         if (!isPlayer) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("You are only an observer.")));
+            connections.send(session, new ErrorMessage("You are only an observer."));
             return;
         }
 
@@ -200,7 +249,10 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
               gameData.gameID(),
               gameData.gameName(),
               gameData.whiteUsername(),
-             gameData.blackUsername()));
+              gameData.blackUsername(),
+              gameData.version()));
+        } catch(ConflictException e) {
+            throw e;
         } catch(Exception e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -214,9 +266,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             return;
         }
 
-        AuthAccess authAccess = new MySQLAuthAccess();
         AuthData authData;
-        GameAccess gameAccess = new MySQLGameAccess();
         GameData gameData;
         try { 
             authData = authAccess.getAuth(cmd.getAuthToken());
@@ -225,13 +275,13 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             throw new DataAccessException(e.getMessage());
         }
         if (authData == null || gameData == null) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: invalid authToken")));
+            connections.send(session, new ErrorMessage("Error: invalid authToken"));
             return;
         }
 
         ChessGame game = gameData.game();
         if (game.gameOver) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("The game is over.")));
+            connections.send(session, new ErrorMessage("The game is over."));
             return;
         }
 
@@ -239,7 +289,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
           || connection.username.equals(gameData.blackUsername());
         if (!isPlayer) {
             try {
-                session.getRemote().sendString(new Gson().toJson(new ErrorMessage("You are only an observer.")));
+                connections.send(session, new ErrorMessage("You are only an observer."));
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -251,7 +301,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
           ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
 
         if (game.getTeamTurn() != playerColor) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("It is not your turn")));
+            connections.send(session, new ErrorMessage("It is not your turn"));
             return;
         }
 
@@ -259,13 +309,10 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             game.makeMove(move);
         } catch (InvalidMoveException ex) {
             ErrorMessage err = new ErrorMessage("Error: invalid move");
-            session.getRemote().sendString(new Gson().toJson(err));
+            connections.send(session, err);
             return;
         }
 
-        String notificationText = connection.username + ": " + move.toString();
-        connections.broadcast(session, new NotificationMessage(notificationText), gameData.gameID());
-        
         ChessGame.TeamColor otherTeam;
         String otherUsername; 
         if (connection.username.equals(gameData.whiteUsername())) {
@@ -277,33 +324,156 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             otherUsername = gameData.whiteUsername();
         }
 
-        if (game.isInCheck(otherTeam)) {
-            if (game.isInCheckmate(otherTeam)) {
-                connections.broadcastAll(
-                  new NotificationMessage(connection.username + " has checkmated " + otherUsername + "."), 
-                  gameData.gameID());
-                game.gameOver = true;
-            }
-            else if (game.isInStalemate(otherTeam)) {
-                connections.broadcastAll(
-                  new NotificationMessage(connection.username + " and " + otherUsername + " are in a stalemate. Game over."), 
-                  gameData.gameID());
-                game.gameOver = true;
-            }
-            else {
-                connections.broadcastAll(new NotificationMessage(otherUsername + " is in check."), gameData.gameID());
-            }
+        //a position in the tablebases is decided, so the game need not be played out
+        Tablebase.Result decided = tablebase.probe(game);
+        String outcome = null;
+        if (game.isInCheckmate(otherTeam)) {
+            outcome = connection.username + " has checkmated " + otherUsername + ".";
+            game.gameOver = true;
+        }
+        else if (game.isInStalemate(otherTeam)) {
+            outcome = connection.username + " and " + otherUsername + " are in a stalemate. Game over.";
+            game.gameOver = true;
+        }
+        else if (game.isThreefoldRepetition()) {
+            outcome = "The position has repeated three times. The game is a draw.";
+            game.gameOver = true;
+        }
+        else if (game.isFiftyMoveDraw()) {
+            outcome = "Fifty moves without a capture or pawn move. The game is a draw.";
+            game.gameOver = true;
+        }
+        else if (decided != null) {
+            outcome = adjudication(decided, connection.username, otherUsername);
+            game.gameOver = true;
+        }
+        else if (game.isInCheck(otherTeam)) {
+            outcome = otherUsername + " is in check.";
         }
 
+        //written before anyone is told, so a move refused for a conflict is never announced. A
+        //write-behind store can still refuse it when it flushes, and then calls reloadGame
         try {
-            gameAccess.updateGame( new GameData(game, gameData.gameID(), gameData.gameName(), 
-              gameData.whiteUsername(), gameData.blackUsername()));
+            gameAccess.addMove(new GameData(game, gameData.gameID(), gameData.gameName(), 
+              gameData.whiteUsername(), gameData.blackUsername(), gameData.version()), move);
+        } catch (ConflictException e) {
+            throw e;
         } catch (Exception e) {
             throw new DataAccessException(e.getMessage());
         }
+
+        String notificationText = connection.username + ": " + move.toString();
+        connections.broadcast(session, new NotificationMessage(notificationText), gameData.gameID());
+        if (outcome != null) {
+            connections.broadcastAll(new NotificationMessage(outcome), gameData.gameID());
+        }
         connections.broadcastAll(new LoadGameMessage(game, gameData.gameID()), gameData.gameID());
     }
 
+    /**
+     * Shows a game's connections the stored game after writes they were shown
+     * were dropped for a conflict
+     *
+     * @param game the game as it is stored
+     */
+    public void reloadGame(GameData game) {
+        try {
+            connections.broadcastAll(new NotificationMessage(
+              "The game was changed on another server, so the latest moves were not saved."), game.gameID());
+            connections.broadcastAll(new LoadGameMessage(game.game(), game.gameID()), game.gameID());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param result   tablebase result for the side to move
+     * @param mover    player who just moved
+     * @param opponent player to move
+     */
+    private static String adjudication(Tablebase.Result result, String mover, String opponent) {
+        return switch (result) {
+            case WIN -> "Tablebase: " + opponent + " wins with correct play. Game over.";
+            case LOSS -> "Tablebase: " + mover + " wins with correct play. Game over.";
+            case DRAW -> "Tablebase: the position is a draw with correct play. Game over.";
+        };
+    }
+
+    /**
+     * Queues a search of the game's current position. The result is sent to this
+     * session alone when a worker finishes, so the handler returns right away.
+     */
+    private void analyze(UserGameCommand cmd, Session session) throws IOException, DataAccessException {
+        var connection = connections.get(session);
+        if (connection == null) {
+            return;
+        }
+        GameData gameData = connectedGame(connection, session);
+        if (gameData != null) {
+            queueAnalysis(connection, gameData, session);
+        }
+    }
+
+    /**
+     * Answers from the opening book at once when the position is a known opening,
+     * and otherwise queues a search like ANALYZE
+     */
+    private void hint(UserGameCommand cmd, Session session) throws IOException, DataAccessException {
+        var connection = connections.get(session);
+        if (connection == null) {
+            return;
+        }
+        GameData gameData = connectedGame(connection, session);
+        if (gameData == null) {
+            return;
+        }
+        ChessGame game = gameData.game();
+        ChessMove bookMove = book.bestMove(game);
+        if (bookMove != null) {
+            connections.send(session, new AnalysisMessage(gameData.gameID(), bookMove, game.evaluate(), false, 0, true));
+            return;
+        }
+        queueAnalysis(connection, gameData, session);
+    }
+
+    /**
+     * @return the game the session is connected to, or null after telling the session it does not exist
+     */
+    private GameData connectedGame(ConnectionManager.Connection connection, Session session)
+            throws IOException, DataAccessException {
+        GameData gameData;
+        try {
+            gameData = gameAccess.getGame(connection.gameID);
+        } catch(Exception e) {
+            throw new DataAccessException(e.getMessage());
+        }
+        if (gameData == null) {
+            connections.send(session, new ErrorMessage("Error: invalid gameID"));
+        }
+        return gameData;
+    }
+
+    private void queueAnalysis(ConnectionManager.Connection connection, GameData gameData, Session session)
+            throws IOException {
+        AnalysisJob job = new AnalysisJob(connection.username, gameData.gameID(), gameData.game());
+        AnalysisPool.Submission submission = analysis.submit(job, result -> {
+            try {
+                connections.send(session, result);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        String error = switch (submission) {
+            case ACCEPTED -> null;
+            case QUEUE_FULL -> "Error: the server is busy analyzing other games. Try again shortly.";
+            case QUOTA_EXCEEDED -> "Error: you already have analyses waiting. Wait for them to finish.";
+            case SHUT_DOWN -> "Error: analysis is not available";
+        };
+        if (error != null) {
+            connections.send(session, new ErrorMessage(error));
+        }
+    }
+
     String parsePosition(ChessPosition pos) {
         return String.format("%c%d", (char) ('a' + pos.getColumn() - 1), (char) pos.getRow() + '0');    
     }
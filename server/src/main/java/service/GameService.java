@@ -2,12 +2,21 @@ package service;
 
 import dataaccess.*;
 import model.*;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.TreeMap;
 import chess.ChessGame;
+import chess.MoveLog;
+import chess.GameValidator;
 
 public class GameService {
+    //times a join is tried before a conflicting write is reported
+    static final int MAX_JOIN_ATTEMPTS = 3;
+
     GameAccess gameAccess;
     AuthAccess authAccess;
 
@@ -39,6 +48,19 @@ public class GameService {
     }
 
     public boolean joinGame(String authToken, int gameID, String color) throws Exception {
+        //another write may get to the game first; reading it again shows whether the seat is still free
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tryJoinGame(authToken, gameID, color);
+            } catch (ConflictException e) {
+                if (attempt == MAX_JOIN_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean tryJoinGame(String authToken, int gameID, String color) throws Exception {
         AuthData authData;
         GameData gameData;
         authData = authAccess.getAuth(authToken);
@@ -78,10 +100,46 @@ public class GameService {
         } else {
             throw new BadRequestException("Error: %s is not a valid team color".formatted(color));
         }
-        gameAccess.updateGame(new GameData(gameData.game(), gameID, gameData.gameName(), whiteUser, blackUser));
+        gameAccess.updateGame(new GameData(gameData.game(), gameID, gameData.gameName(), whiteUser, blackUser,
+                gameData.version()));
         return true;
     }
 
+    /**
+     * Checks every stored game for states legal play cannot reach, spread across all cores
+     *
+     * @return the problems of every game that has any, by gameID
+     */
+    public Map<Integer, List<String>> validateGames(String authToken) throws Exception {
+        if (authAccess.getAuth(authToken) == null) {
+            throw new UnauthorizedException();
+        }
+        return validateGames();
+    }
+
+    /**
+     * Checks every stored game's position and replays its logged moves to it
+     *
+     * @return the problems of each game that has any, by gameID
+     */
+    public Map<Integer, List<String>> validateGames() throws Exception {
+        List<GameData> games = new ArrayList<>(gameAccess.listGames());
+        List<MoveLog> logs = new ArrayList<>(games.size());
+        for (GameData game : games) {
+            MoveLog log = gameAccess.getMoveLog(game.gameID());
+            //a game deleted since it was listed has nothing to replay
+            logs.add((log == null) ? new MoveLog(game.game(), 1, List.of()) : log);
+        }
+        List<List<String>> problems = GameValidator.validateAll(games.stream().map(GameData::game).toList(), logs);
+        Map<Integer, List<String>> invalid = new TreeMap<>();
+        for (int i = 0; i < games.size(); i++) {
+            if (!problems.get(i).isEmpty()) {
+                invalid.put(games.get(i).gameID(), problems.get(i));
+            }
+        }
+        return invalid;
+    }
+
     public void clear() throws Exception {
         gameAccess.clear();
     }
@@ -55,6 +55,18 @@ public class UserService {
         authAccess.deleteAuth(authToken);
     }
 
+    /**
+     * @return the session of the authToken
+     * @throws UnauthorizedException if the authToken is not a session
+     */
+    public AuthData authenticate(String authToken) throws Exception {
+        AuthData authData = authAccess.getAuth(authToken);
+        if (authData == null) {
+            throw new UnauthorizedException();
+        }
+        return authData;
+    }
+
     public void clear() throws Exception {
         userAccess.clear();
         authAccess.clear();
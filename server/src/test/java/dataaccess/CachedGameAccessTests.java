@@ -0,0 +1,245 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import model.GameData;
+
+public class CachedGameAccessTests {
+    private RecordingStore store;
+    private CachedGameAccess cache;
+
+    /**
+     * An in-memory store that records its batches and can be made to fail
+     */
+    private static class RecordingStore extends MemoryGameAccess {
+        final List<Integer> batchSizes = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public synchronized void writeBatch(List<GameWrite> writes) throws Exception {
+            if (failing) {
+                throw new DataAccessException("Error: store unavailable");
+            }
+            batchSizes.add(writes.size());
+            super.writeBatch(writes);
+        }
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        store = new RecordingStore();
+        store.createGame(new GameData(new ChessGame(), 1, "One", "white", "black"));
+        store.createGame(new GameData(new ChessGame(), 2, "Two", "white", "black"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.failing = false;
+        cache.close();
+    }
+
+    /**
+     * Plays a move on the cached game, the way WebSocketHandler does
+     */
+    private GameData play(int gameID, String text) throws Exception {
+        GameData game = cache.getGame(gameID);
+        ChessMove move = Move.toChessMove(Move.parse(text));
+        game.game().makeMove(move);
+        cache.addMove(game, move);
+        return game;
+    }
+
+    @Test
+    @DisplayName("Moves Visible Before They Are Stored")
+    void writeBehind() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC);
+        GameData played = play(1, "e2e4");
+
+        assertEquals(played.game().getBoard(), cache.getGame(1).game().getBoard());
+        assertEquals(new ChessGame().getBoard(), store.getGame(1).game().getBoard());
+        assertEquals(1, cache.pendingWrites());
+
+        cache.flush();
+        assertEquals(played.game().getBoard(), store.getGame(1).game().getBoard());
+        assertEquals(1, store.getMoves(1).size());
+        assertEquals(0, cache.pendingWrites());
+    }
+
+    @Test
+    @DisplayName("Many Games Flushed In One Batch")
+    void batching() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC);
+        play(1, "e2e4");
+        play(2, "d2d4");
+        play(1, "e7e5");
+
+        cache.flush();
+        assertEquals(List.of(3), store.batchSizes);
+        assertEquals(List.of(Move.toChessMove(Move.parse("e2e4")), Move.toChessMove(Move.parse("e7e5"))),
+                store.getMoves(1));
+    }
+
+    @Test
+    @DisplayName("Background Writer Flushes")
+    void backgroundFlush() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofMillis(20), CachedGameAccess.Durability.ASYNC);
+        play(1, "e2e4");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cache.pendingWrites() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, cache.pendingWrites());
+        assertEquals(1, store.getMoves(1).size());
+    }
+
+    @Test
+    @DisplayName("Game End Stored At Once")
+    void syncOnGameEnd() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.SYNC_ON_GAME_END);
+        play(2, "g1f3");
+        GameData resigned = cache.getGame(1);
+        resigned.game().gameOver = true;
+        cache.updateGame(resigned);
+
+        assertEquals(0, cache.pendingWrites());
+        assertTrue(store.getGame(1).game().gameOver);
+        assertEquals(1, store.getMoves(2).size());
+    }
+
+    @Test
+    @DisplayName("Failed Flush Retried In Order")
+    void retry() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC);
+        play(1, "e2e4");
+        store.failing = true;
+        assertThrows(DataAccessException.class, () -> cache.flush());
+        assertEquals(1, cache.pendingWrites());
+
+        play(1, "e7e5");
+        store.failing = false;
+        cache.flush();
+        assertEquals(List.of(Move.toChessMove(Move.parse("e2e4")), Move.toChessMove(Move.parse("e7e5"))),
+                store.getMoves(1));
+    }
+
+    @Test
+    @DisplayName("Stale Write Rejected")
+    void staleWrite() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC);
+        GameData first = cache.getGame(1);
+        GameData second = cache.getGame(1);
+        cache.updateGame(new GameData(first.game(), 1, "One", "white", null, first.version()));
+
+        assertThrows(ConflictException.class,
+                () -> cache.updateGame(new GameData(second.game(), 1, "One", null, "black", second.version())));
+        assertNull(cache.getGame(1).blackUsername());
+        assertEquals(1, cache.pendingWrites());
+    }
+
+    @Test
+    @DisplayName("Writes Refused By Store Dropped")
+    void storeConflict() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC);
+        play(1, "e2e4");
+        play(2, "d2d4");
+        play(1, "e7e5");
+        //another server writes game 1 behind the cache's back
+        GameData elsewhere = store.getGame(1);
+        store.updateGame(new GameData(elsewhere.game(), 1, "One", "someone", "black", elsewhere.version()));
+
+        List<GameData> reloaded = new ArrayList<>();
+        cache.setConflictListener(reloaded::add);
+
+        cache.flush();
+        assertEquals(1, cache.conflicts());
+        assertEquals(0, cache.pendingWrites());
+        assertEquals("someone", cache.getGame(1).whiteUsername());
+        assertTrue(store.getMoves(1).isEmpty());
+        assertEquals(1, store.getMoves(2).size());
+        //the players are shown the stored game in place of the moves they lost
+        assertEquals(1, reloaded.size());
+        assertEquals("someone", reloaded.get(0).whiteUsername());
+        assertEquals(new ChessGame().getBoard(), reloaded.get(0).game().getBoard());
+    }
+
+    @Test
+    @DisplayName("Game End Refused By Store Reported To Writer")
+    void syncConflict() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.SYNC_ON_GAME_END);
+        List<GameData> reloaded = new ArrayList<>();
+        cache.setConflictListener(reloaded::add);
+        play(1, "e2e4");
+        GameData elsewhere = store.getGame(1);
+        store.updateGame(new GameData(elsewhere.game(), 1, "One", "someone", "black", elsewhere.version()));
+
+        GameData resigned = cache.getGame(1);
+        resigned.game().gameOver = true;
+        assertThrows(ConflictException.class, () -> cache.updateGame(resigned));
+        assertFalse(store.getGame(1).game().gameOver);
+        assertEquals(1, reloaded.size());
+        assertEquals(0, cache.pendingWrites());
+    }
+
+    @Test
+    @DisplayName("Game End Kept Queued When Store Fails")
+    void syncStoreFailure() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.SYNC_ON_GAME_END);
+        store.failing = true;
+        GameData resigned = cache.getGame(1);
+        resigned.game().gameOver = true;
+        assertDoesNotThrow(() -> cache.updateGame(resigned));
+        assertEquals(1, cache.pendingWrites());
+        assertEquals(1, cache.flushFailures());
+
+        store.failing = false;
+        cache.flush();
+        assertTrue(store.getGame(1).game().gameOver);
+    }
+
+    @Test
+    @DisplayName("Only Games Being Played Stay Cached")
+    void eviction() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC);
+        cache.getGame(1);
+        assertEquals(0, cache.cachedGames());
+
+        play(1, "e2e4");
+        cache.flush();
+        assertEquals(1, cache.cachedGames());
+
+        GameData resigned = cache.getGame(1);
+        resigned.game().gameOver = true;
+        cache.updateGame(resigned);
+        assertEquals(1, cache.cachedGames());
+        cache.flush();
+        assertEquals(0, cache.cachedGames());
+    }
+
+    @Test
+    @DisplayName("Idle Games Leave Once Stored")
+    void idleEviction() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC, Duration.ZERO);
+        play(1, "e2e4");
+        assertEquals(1, cache.cachedGames());
+        cache.flush();
+        assertEquals(0, cache.cachedGames());
+        assertEquals(1, store.getMoves(1).size());
+    }
+
+    @Test
+    @DisplayName("Callers Cannot Change Cached Games")
+    void copies() throws Exception {
+        cache = new CachedGameAccess(store, Duration.ofHours(1), CachedGameAccess.Durability.ASYNC);
+        GameData game = cache.getGame(1);
+        game.game().makeMove(Move.toChessMove(Move.parse("e2e4")));
+
+        assertEquals(new ChessGame().getBoard(), cache.getGame(1).game().getBoard());
+    }
+}
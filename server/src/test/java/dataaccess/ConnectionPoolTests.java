@@ -0,0 +1,191 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ConnectionPoolTests {
+    private ConnectionPool pool;
+    private final List<FakeConnection> opened = new ArrayList<>();
+
+    /**
+     * State behind a stand-in connection, so the pool can be tested without a database
+     */
+    private static class FakeConnection {
+        boolean closed;
+        boolean valid = true;
+        boolean autoCommit = true;
+        int rollbacks;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "isValid" -> valid && !closed;
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks++;
+                            yield null;
+                        }
+                        case "getCatalog" -> "chess";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    private void createPool(ConnectionPool.Config config) {
+        pool = new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            synchronized (opened) {
+                opened.add(fake);
+            }
+            return fake.proxy();
+        }, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Returned Connections Are Reused")
+    void reuse() throws Exception {
+        createPool(ConnectionPool.Config.DEFAULT);
+        try (Connection conn = pool.getConnection()) {
+            assertEquals("chess", conn.getCatalog());
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertEquals("chess", conn.getCatalog());
+            assertEquals(1, pool.metrics().active());
+        }
+
+        assertEquals(1, opened.size());
+        assertFalse(opened.get(0).closed);
+        ConnectionPool.Metrics metrics = pool.metrics();
+        assertEquals(0, metrics.active());
+        assertEquals(1, metrics.idle());
+        assertEquals(2, metrics.acquired());
+        assertEquals(1, metrics.created());
+    }
+
+    @Test
+    @DisplayName("Closed Connection Cannot Be Used")
+    void closedConnection() throws Exception {
+        createPool(ConnectionPool.Config.DEFAULT);
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::getCatalog);
+        assertEquals(1, pool.metrics().idle());
+    }
+
+    @Test
+    @DisplayName("Pool Is Bounded")
+    void bounded() throws Exception {
+        createPool(new ConnectionPool.Config(1, 50, 60_000, 60_000, 1));
+        try (Connection ignored = pool.getConnection()) {
+            assertThrows(SQLException.class, () -> pool.getConnection());
+        }
+
+        ConnectionPool.Metrics metrics = pool.metrics();
+        assertEquals(1, metrics.timeouts());
+        assertEquals(1, metrics.created());
+        assertTrue(metrics.maxWaitUs() < 50_000, "the timed out wait is not counted");
+    }
+
+    @Test
+    @DisplayName("Waiting Caller Gets Returned Connection")
+    void waiter() throws Exception {
+        createPool(new ConnectionPool.Config(1, 5_000, 60_000, 60_000, 1));
+        Connection first = pool.getConnection();
+        CountDownLatch waiting = new CountDownLatch(1);
+        CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                waiting.countDown();
+                return pool.getConnection();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        //timed from when the waiter starts, since the async task itself may start late
+        waiting.await();
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(1, opened.size());
+        assertTrue(pool.metrics().maxWaitUs() >= 40_000);
+    }
+
+    @Test
+    @DisplayName("Broken Idle Connection Replaced")
+    void validation() throws Exception {
+        createPool(new ConnectionPool.Config(2, 1_000, 60_000, 0, 1));
+        pool.getConnection().close();
+        opened.get(0).valid = false;
+
+        try (Connection ignored = pool.getConnection()) {
+            assertEquals(2, opened.size());
+            assertTrue(opened.get(0).closed);
+        }
+    }
+
+    @Test
+    @DisplayName("Old Connections Retired")
+    void maxLifetime() throws Exception {
+        createPool(new ConnectionPool.Config(2, 1_000, 0, 60_000, 1));
+        pool.getConnection().close();
+        pool.getConnection().close();
+
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed);
+        assertTrue(opened.get(1).closed);
+        assertEquals(0, pool.metrics().idle());
+    }
+
+    @Test
+    @DisplayName("Open Transaction Rolled Back On Return")
+    void rollback() throws Exception {
+        createPool(ConnectionPool.Config.DEFAULT);
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+        }
+
+        assertEquals(1, opened.get(0).rollbacks);
+        assertTrue(opened.get(0).autoCommit);
+    }
+
+    @Test
+    @DisplayName("Closed Pool Refuses Connections")
+    void closedPool() throws Exception {
+        createPool(ConnectionPool.Config.DEFAULT);
+        Connection borrowed = pool.getConnection();
+        pool.getConnection().close();
+        pool.close();
+
+        assertTrue(opened.get(1).closed);
+        assertThrows(SQLException.class, () -> pool.getConnection());
+        borrowed.close();
+        assertTrue(opened.get(0).closed);
+        assertEquals(0, pool.metrics().active());
+    }
+}
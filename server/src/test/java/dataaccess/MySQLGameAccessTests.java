@@ -10,6 +10,8 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.HashSet;
+import java.util.List;
+import chess.Move;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @ExtendWith(TestServer.class)
@@ -118,6 +120,19 @@ class MySQLGameAccessTests {
         assertThrows(DataAccessException.class, () -> gameAccess.updateGame(invalid));
     }
 
+    @Test
+    @DisplayName("updateGame - Negative: Throws on a stale version")
+    void updateGameStale() throws Exception {
+        gameAccess.createGame(new GameData(defaultGame, 3, "Contested", null, null));
+        GameData read = gameAccess.getGame(3);
+        gameAccess.updateGame(new GameData(read.game(), 3, "Contested", "player1", null, read.version()));
+
+        GameData stale = new GameData(read.game(), 3, "Contested", null, "player2", read.version());
+        assertThrows(ConflictException.class, () -> gameAccess.updateGame(stale));
+        assertEquals("player1", gameAccess.getGame(3).whiteUsername());
+        assertNull(gameAccess.getGame(3).blackUsername());
+    }
+
     @Test
     @DisplayName("listGames - Positive: Returns all games")
     void listGamesMultiple() throws Exception {
@@ -147,4 +162,68 @@ class MySQLGameAccessTests {
 
         assertTrue(gameAccess.listGames().isEmpty());
     }
+
+    @Test
+    @DisplayName("addMove - Positive: Game rebuilt from snapshot and logged moves")
+    void addMoveReplays() throws Exception {
+        gameAccess.createGame(new GameData(new ChessGame(), 7, "Moves", "white", "black"));
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        int plies = MySQLGameAccess.SNAPSHOT_INTERVAL + 2;
+        for (int ply = 0; ply < plies; ply++) {
+            ChessMove move = Move.toChessMove(Move.parse(shuffle[ply % shuffle.length]));
+            game.makeMove(move);
+            gameAccess.addMove(new GameData(game, 7, "Moves", "white", "black", ply), move);
+        }
+
+        assertEquals(game.getBoard(), gameAccess.getGame(7).game().getBoard());
+        assertEquals(game.getTeamTurn(), gameAccess.getGame(7).game().getTeamTurn());
+        assertEquals(game.getBoard(), gameAccess.listGames().iterator().next().game().getBoard());
+        List<ChessMove> moves = gameAccess.getMoves(7);
+        assertEquals(plies, moves.size());
+        assertEquals(Move.toChessMove(Move.parse("g1f3")), moves.get(0));
+    }
+
+    @Test
+    @DisplayName("listGames - Negative: Game with a broken move log listed at its snapshot")
+    void listGamesBrokenLog() throws Exception {
+        gameAccess.createGame(new GameData(new ChessGame(), 8, "Broken", null, null));
+        gameAccess.createGame(new GameData(new ChessGame(), 9, "Fine", null, null));
+        MySQLHelper.executeUpdate("INSERT INTO game_move (gameID, ply, move) VALUES (?, ?, ?)",
+                8, 1, Move.parse("e2e5"));
+
+        HashSet<GameData> games = gameAccess.listGames();
+        assertEquals(2, games.size());
+        assertTrue(games.stream().allMatch(g -> g.game().getBoard().equals(new ChessGame().getBoard())));
+    }
+
+    @Test
+    @DisplayName("getMoveLog - Positive: Log from the start, or from the snapshot for older games")
+    void getMoveLogStart() throws Exception {
+        gameAccess.createGame(new GameData(new ChessGame(), 5, "Logged", "white", "black"));
+        ChessGame game = new ChessGame();
+        ChessMove move = Move.toChessMove(Move.parse("e2e4"));
+        game.makeMove(move);
+        gameAccess.addMove(new GameData(game, 5, "Logged", "white", "black"), move);
+
+        chess.MoveLog log = gameAccess.getMoveLog(5);
+        assertEquals(new ChessGame(), log.start());
+        assertEquals(1, log.firstPly());
+        assertEquals(List.of(move), log.moves());
+
+        //a game stored before moves were logged
+        MySQLHelper.executeUpdate("UPDATE game SET fullMoveLog=FALSE, snapshotPly=1 WHERE gameId=?", 5);
+        log = gameAccess.getMoveLog(5);
+        assertEquals(2, log.firstPly());
+        assertTrue(log.moves().isEmpty());
+        assertNull(gameAccess.getMoveLog(999));
+    }
+
+    @Test
+    @DisplayName("addMove - Negative: Throws on invalid gameID")
+    void addMoveInvalidID() {
+        GameData invalid = new GameData(new ChessGame(), 999, "Fake", "a", "b");
+        ChessMove move = Move.toChessMove(Move.parse("e2e4"));
+        assertThrows(DataAccessException.class, () -> gameAccess.addMove(invalid, move));
+    }
 }
\ No newline at end of file
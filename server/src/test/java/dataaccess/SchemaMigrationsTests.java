@@ -0,0 +1,26 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+public class SchemaMigrationsTests {
+    @Test
+    @DisplayName("Versions Count Up From One")
+    void versions() {
+        List<SchemaMigrations.Migration> migrations = SchemaMigrations.MIGRATIONS;
+        for (int i = 0; i < migrations.size(); i++) {
+            assertEquals(i + 1, migrations.get(i).version());
+            assertTrue(migrations.get(i).statements().length > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Only Newer Migrations Pending")
+    void pending() {
+        int latest = SchemaMigrations.MIGRATIONS.size();
+        assertEquals(SchemaMigrations.MIGRATIONS, SchemaMigrations.pending(0));
+        assertEquals(List.of(SchemaMigrations.MIGRATIONS.get(latest - 1)), SchemaMigrations.pending(latest - 1));
+        assertTrue(SchemaMigrations.pending(latest).isEmpty());
+    }
+}
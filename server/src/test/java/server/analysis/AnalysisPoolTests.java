@@ -0,0 +1,93 @@
+package server.analysis;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import chess.*;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import websocket.messages.AnalysisMessage;
+
+public class AnalysisPoolTests {
+    private static final String HANGING_QUEEN = "4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1";
+
+    private AnalysisPool pool;
+    private final BlockingQueue<AnalysisMessage> results = new ArrayBlockingQueue<>(16);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private AnalysisPool.Submission submit(String username, String fen) {
+        return pool.submit(new AnalysisJob(username, 1, Fen.parse(fen)), results::add);
+    }
+
+    @Test
+    @DisplayName("Analysis Result Delivered")
+    void resultDelivered() throws Exception {
+        pool = new AnalysisPool(1, 4, 2, Duration.ofMillis(100));
+        assertEquals(AnalysisPool.Submission.ACCEPTED, submit("user1", HANGING_QUEEN));
+
+        AnalysisMessage result = results.poll(5, TimeUnit.SECONDS);
+        assertNotNull(result);
+        assertEquals(1, result.getGameID());
+        assertEquals(new ChessMove(ChessPosition.of(1, 4), ChessPosition.of(5, 4), null), result.getBestMove());
+        assertTrue(result.getEvaluation() > 0, "white wins the queen");
+        assertFalse(result.isMate());
+    }
+
+    @Test
+    @DisplayName("Evaluation From White's Side")
+    void evaluationFromWhite() throws Exception {
+        pool = new AnalysisPool(1, 4, 2, Duration.ofMillis(100));
+        //black to move and a queen up
+        submit("user1", "3qk3/8/8/8/8/8/8/4K3 b - - 0 1");
+        assertTrue(results.poll(5, TimeUnit.SECONDS).getEvaluation() < 0);
+    }
+
+    @Test
+    @DisplayName("Per-User Quota")
+    void perUserQuota() throws Exception {
+        pool = new AnalysisPool(1, 8, 2, Duration.ofMillis(300));
+        assertEquals(AnalysisPool.Submission.ACCEPTED, submit("user1", Fen.START_POSITION));
+        assertEquals(AnalysisPool.Submission.ACCEPTED, submit("user1", Fen.START_POSITION));
+        assertEquals(AnalysisPool.Submission.QUOTA_EXCEEDED, submit("user1", Fen.START_POSITION));
+        assertEquals(AnalysisPool.Submission.ACCEPTED, submit("user2", Fen.START_POSITION));
+
+        //finished jobs free the quota again
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(results.poll(5, TimeUnit.SECONDS));
+        }
+        assertEquals(AnalysisPool.Submission.ACCEPTED, submit("user1", Fen.START_POSITION));
+    }
+
+    @Test
+    @DisplayName("Full Queue Rejects Jobs")
+    void fullQueue() throws Exception {
+        pool = new AnalysisPool(1, 1, 2, Duration.ofMillis(500));
+        assertEquals(AnalysisPool.Submission.ACCEPTED, submit("user1", Fen.START_POSITION));
+        //wait for the worker to take the first job, so the second one is the only one queued
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.metrics().activeWorkers() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(AnalysisPool.Submission.ACCEPTED, submit("user2", Fen.START_POSITION));
+        assertEquals(AnalysisPool.Submission.QUEUE_FULL, submit("user3", Fen.START_POSITION));
+
+        AnalysisPool.Metrics metrics = pool.metrics();
+        assertEquals(1, metrics.queueDepth());
+        assertEquals(1, metrics.queueCapacity());
+        assertEquals(1, metrics.activeWorkers());
+        assertEquals(1, metrics.rejected());
+    }
+
+    @Test
+    @DisplayName("No Jobs After Shutdown")
+    void shutdown() {
+        pool = new AnalysisPool(1, 4, 2, Duration.ofMillis(100));
+        pool.shutdown();
+        assertEquals(AnalysisPool.Submission.SHUT_DOWN, submit("user1", Fen.START_POSITION));
+    }
+}
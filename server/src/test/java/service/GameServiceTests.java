@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import dataaccess.*;
 import model.*;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 public class GameServiceTests {
     GameService gameService;
@@ -99,4 +101,74 @@ public class GameServiceTests {
         boolean success = gameService.joinGame(auth2.authToken(), gameID, "WHITE");
         assertFalse(success);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Validate Games Finds Broken Game")
+    void validateGamesFindsBrokenGame() throws Exception {
+        int goodID = gameService.createGame(existingAuthToken, "Good");
+        int brokenID = gameService.createGame(existingAuthToken, "Broken");
+        gameAccess.updateGame(new GameData(chess.Fen.parse("8/8/8/8/8/8/8/4K3 w - - 0 1"), brokenID, "Broken", null, null));
+
+        Map<Integer, List<String>> invalid = gameService.validateGames();
+        assertFalse(invalid.containsKey(goodID));
+        assertEquals(List.of("BLACK has 0 kings", "the position does not match the logged moves"),
+                invalid.get(brokenID));
+    }
+
+    @Test
+    @DisplayName("Validate Games Replays Stored Moves")
+    void validateGamesReplaysMoves() throws Exception {
+        int gameID = gameService.createGame(existingAuthToken, "Replayed");
+        GameData game = gameAccess.getGame(gameID);
+        //a move the store took without checking it
+        gameAccess.addMove(game, chess.Move.toChessMove(chess.Move.parse("e2e5")));
+
+        assertEquals(Map.of(gameID, List.of("move 1 (e2e5) is illegal")), gameService.validateGames(existingAuthToken));
+        assertThrows(UnauthorizedException.class, () -> gameService.validateGames("badtoken"));
+    }
+
+    /**
+     * A store where another writer changes every game just before the next few updates
+     */
+    private static class ContestedStore extends MemoryGameAccess {
+        int conflictsLeft;
+        int updates;
+
+        @Override
+        public void updateGame(GameData game) throws ConflictException {
+            updates++;
+            if (conflictsLeft > 0) {
+                conflictsLeft--;
+                //the other writer's change lands first, so this write's version is stale
+                super.updateGame(getGame(game.gameID()));
+            }
+            super.updateGame(game);
+        }
+    }
+
+    @Test
+    @DisplayName("Join Game Retried After Conflict")
+    void joinGameRetriesConflict() throws Exception {
+        ContestedStore store = new ContestedStore();
+        gameService = new GameService(store, authAccess);
+        int gameID = gameService.createGame(existingAuthToken, "Contested");
+        store.conflictsLeft = 1;
+
+        assertTrue(gameService.joinGame(existingAuthToken, gameID, "WHITE"));
+        assertEquals(2, store.updates);
+        assertEquals(authAccess.getAuth(existingAuthToken).username(), store.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    @DisplayName("Join Game Gives Up After Repeated Conflicts")
+    void joinGameConflictsRepeatedly() throws Exception {
+        ContestedStore store = new ContestedStore();
+        gameService = new GameService(store, authAccess);
+        int gameID = gameService.createGame(existingAuthToken, "Contested");
+        store.conflictsLeft = Integer.MAX_VALUE;
+
+        assertThrows(ConflictException.class, () -> gameService.joinGame(existingAuthToken, gameID, "WHITE"));
+        assertEquals(GameService.MAX_JOIN_ATTEMPTS, store.updates);
+        assertNull(store.getGame(gameID).whiteUsername());
+    }
+}
@@ -72,4 +72,17 @@ public class UserServiceTests {
         assertThrows(UnauthorizedException.class, () -> 
             userService.logoutUser("fake_token"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Authenticate Success")
+    void authenticateSuccess() throws Exception {
+        AuthData response = userService.register(testUser);
+        assertEquals(testUser.username(), userService.authenticate(response.authToken()).username());
+    }
+
+    @Test
+    @DisplayName("Authenticate Unauthorized (Bad Token)")
+    void authenticateUnauthorized() {
+        assertThrows(UnauthorizedException.class, () -> userService.authenticate("fake_token"));
+    }
+}
@@ -1,42 +1,85 @@
 package chess;
 
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Objects;
-import com.google.gson.annotations.Expose;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import piecemoves.AttackTables;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * The position is stored as twelve 64-bit bitboards, one per color and piece
+ * type, where bit {@code (row - 1) * 8 + (col - 1)} is set when that square
+ * holds the piece. Copying a board is a couple of array copies and no pieces
+ * are allocated to store the position.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.BoardAdapter.class)
 public class ChessBoard {
-    @Expose 
-    private ChessPiece[][] board;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+
+    //indexed by pieceIndex(color, type)
+    private final long[] pieces = new long[12];
+    //indexed by color ordinal
+    private final long[] colors = new long[2];
+    private long occupied;
+    //Zobrist key of the pieces, updated as they are placed and removed
+    private long key;
+    //material and piece-square score from white's point of view, updated like the key
+    private int evaluation;
+    //squares each color attacks, indexed by color ordinal. Rebuilt on the first
+    //query after the pieces change, while bit color ordinal of attacksValid is clear
+    private final long[] attacks = new long[2];
+    private int attacksValid;
 
     public ChessBoard() {
-        board = new ChessPiece[8][8];
     }
 
     //for copying chess boards
     public ChessBoard(ChessBoard other) {
-        this.board = new ChessPiece[8][8];
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                ChessPiece piece = other.board[i][j];
-                if (piece != null) {
-                    this.board[i][j] = new ChessPiece(piece);
-                }
-            }
-        }
+        System.arraycopy(other.pieces, 0, this.pieces, 0, pieces.length);
+        System.arraycopy(other.colors, 0, this.colors, 0, colors.length);
+        this.occupied = other.occupied;
+        this.key = other.key;
+        this.evaluation = other.evaluation;
+        this.attacks[0] = other.attacks[0];
+        this.attacks[1] = other.attacks[1];
+        this.attacksValid = other.attacksValid;
     }
 
+    /**
+     * @return a snapshot of the board as an 8x8 array indexed [row - 1][col - 1].
+     * Changes to the returned array do not affect the board.
+     */
     public ChessPiece[][] getBoard() {
+        ChessPiece[][] board = new ChessPiece[8][8];
+        for (int square = 0; square < 64; square++) {
+            board[square / 8][square % 8] = pieceAt(square);
+        }
         return board;
     }
 
     public void setBoard(ChessPiece[][] board) {
-        this.board = board;
+        clear();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board[row][col];
+                if (piece != null) {
+                    place(row * 8 + col, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+                }
+            }
+        }
     }
 
     /**
@@ -46,9 +89,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        int row = (position.getRow() - 1);
-        int col = (position.getColumn() - 1);
-        board[row][col] = piece;
+        int square = position.getSquareIndex();
+        remove(square);
+        if (piece != null) {
+            place(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
@@ -59,9 +104,15 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        int row = (position.getRow() - 1);
-        int col = (position.getColumn() - 1);
-        return board[row][col];
+        return pieceAt(position.getSquareIndex());
+    }
+
+    /**
+     * @param square bitboard square index, 0 (a1) through 63 (h8)
+     * @return the shared piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return pieceAt(square);
     }
 
     /**
@@ -69,21 +120,167 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        board = new ChessPiece[8][8];
+        clear();
 
-        ChessPiece.PieceType[] backRow = {ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, 
+        ChessPiece.PieceType[] backRow = {ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT,
             ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING,
             ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
         };
 
-        for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(1,i), new ChessPiece(ChessGame.TeamColor.WHITE, backRow[i - 1]));
-            addPiece(new ChessPosition(2,i), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(8,i), new ChessPiece(ChessGame.TeamColor.BLACK, backRow[i - 1]));
-            addPiece(new ChessPosition(7,i), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        for (int col = 0; col < 8; col++) {
+            place(col, pieceIndex(ChessGame.TeamColor.WHITE, backRow[col]));
+            place(8 + col, pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            place(56 + col, pieceIndex(ChessGame.TeamColor.BLACK, backRow[col]));
+            place(48 + col, pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
     }
 
+    /**
+     * @return bitboard of every square holding a piece of the given color and type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    /**
+     * Gets every square a team attacks, occupied or not. The map is built once per
+     * position and kept until a piece is placed or removed, so repeated questions
+     * about the same position, like check, checkmate and stalemate after a move,
+     * are bit tests.
+     *
+     * @return bitboard of the squares the team's pieces attack
+     */
+    public long getAttacks(ChessGame.TeamColor color) {
+        int bit = 1 << color.ordinal();
+        if ((attacksValid & bit) == 0) {
+            attacks[color.ordinal()] = AttackTables.attacksOf(this, color);
+            attacksValid |= bit;
+        }
+        return attacks[color.ordinal()];
+    }
+
+    /**
+     * @param square square index to test
+     * @param by     the attacking team
+     * @return true if a piece of the given team attacks the square
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor by) {
+        return (getAttacks(by) & (1L << square)) != 0;
+    }
+
+    /**
+     * Gets the square of a team's king. The king bitboard is updated by every
+     * addPiece, move and reset, so this is a single bit scan rather than a search.
+     *
+     * @return square index of the king, or -1 if the team has no king on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        long king = pieces[pieceIndex(color, ChessPiece.PieceType.KING)];
+        return (king == 0) ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given color
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    /**
+     * @return Zobrist key of the piece placement, kept up to date as pieces move
+     */
+    public long getZobristKey() {
+        return key;
+    }
+
+    /**
+     * @return material plus piece-square score in centipawns from white's point of
+     * view, kept up to date as pieces move (see {@link Evaluation})
+     */
+    public int getEvaluation() {
+        return evaluation;
+    }
+
+    /**
+     * Index of a color/type pair into the piece bitboards, in the range 0-11
+     */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @return the piece index (see {@link #pieceIndex}) on the square, or -1 if it is empty
+     */
+    int pieceIndexAt(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0) {
+            return -1;
+        }
+        int first = (colors[0] & bit) != 0 ? 0 : 6;
+        for (int i = first; i < first + 6; i++) {
+            if ((pieces[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ChessPiece pieceAt(int square) {
+        int index = pieceIndexAt(square);
+        if (index < 0) {
+            return null;
+        }
+        return ChessPiece.of(COLORS[index / 6], TYPES[index % 6]);
+    }
+
+    /**
+     * Puts a piece on an empty square
+     */
+    void place(int square, int pieceIndex) {
+        long bit = 1L << square;
+        pieces[pieceIndex] |= bit;
+        colors[pieceIndex / 6] |= bit;
+        occupied |= bit;
+        key ^= Zobrist.piece(pieceIndex, square);
+        evaluation += Evaluation.piece(pieceIndex, square);
+        attacksValid = 0;
+    }
+
+    /**
+     * Clears a square
+     *
+     * @return the piece index that was on the square, or -1 if it was empty
+     */
+    int remove(int square) {
+        int index = pieceIndexAt(square);
+        if (index >= 0) {
+            long bit = ~(1L << square);
+            pieces[index] &= bit;
+            colors[index / 6] &= bit;
+            occupied &= bit;
+            key ^= Zobrist.piece(index, square);
+            evaluation -= Evaluation.piece(index, square);
+            attacksValid = 0;
+        }
+        return index;
+    }
+
+    private void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        occupied = 0L;
+        key = 0L;
+        evaluation = 0;
+        attacksValid = 0;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -92,16 +289,17 @@ public class ChessBoard {
         if (!(o instanceof ChessBoard that)) {
             return false;
         }
-        return Objects.deepEquals(this.board, that.board);
+        return this.key == that.key && Arrays.equals(this.pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(key);
     }
 
     @Override
     public String toString() {
+        ChessPiece[][] board = getBoard();
         StringBuilder sb = new StringBuilder("ChessBoard{board=");
         sb.append('[');
         for (int r = 0; r < 8; r++) {
@@ -113,4 +311,67 @@ public class ChessBoard {
         sb.append("]}");
         return sb.toString();
     }
+
+    /**
+     * Keeps the JSON form of a board as the {@code board} 8x8 piece array it has always
+     * been, so saved games and clients are unaffected by the bitboard representation.
+     */
+    static class BoardAdapter extends TypeAdapter<ChessBoard> {
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            if (board == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("board");
+            out.beginArray();
+            for (int row = 0; row < 8; row++) {
+                out.beginArray();
+                for (int col = 0; col < 8; col++) {
+                    int index = board.pieceIndexAt(row * 8 + col);
+                    if (index < 0) {
+                        out.nullValue();
+                    }
+                    else {
+                        out.beginObject();
+                        out.name("pieceColor").value(COLORS[index / 6].name());
+                        out.name("type").value(TYPES[index % 6].name());
+                        out.endObject();
+                    }
+                }
+                out.endArray();
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            JsonElement element = JsonParser.parseReader(in);
+            if (element.isJsonNull()) {
+                return null;
+            }
+            ChessBoard board = new ChessBoard();
+            JsonElement rows = element.getAsJsonObject().get("board");
+            if (rows == null || rows instanceof JsonNull) {
+                return board;
+            }
+            JsonArray rowArray = rows.getAsJsonArray();
+            for (int row = 0; row < rowArray.size() && row < 8; row++) {
+                JsonArray colArray = rowArray.get(row).getAsJsonArray();
+                for (int col = 0; col < colArray.size() && col < 8; col++) {
+                    JsonElement cell = colArray.get(col);
+                    if (cell == null || !cell.isJsonObject()) {
+                        continue;
+                    }
+                    JsonObject piece = cell.getAsJsonObject();
+                    ChessGame.TeamColor color = ChessGame.TeamColor.valueOf(piece.get("pieceColor").getAsString());
+                    ChessPiece.PieceType type = ChessPiece.PieceType.valueOf(piece.get("type").getAsString());
+                    board.place(row * 8 + col, pieceIndex(color, type));
+                }
+            }
+            return board;
+        }
+    }
 }
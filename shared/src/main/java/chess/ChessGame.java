@@ -1,8 +1,12 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
 import piecemoves.*;
-import java.util.ArrayList;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.annotations.Expose;
 
 /**
@@ -12,14 +16,76 @@ import com.google.gson.annotations.Expose;
  * signature of the existing methods.
  */
 public class ChessGame {
+    //castling rights, packed into the low bits of specialRights
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+    //the en passant square + 1 sits above the castling rights, 0 when there is none
+    private static final int EN_PASSANT_SHIFT = 4;
+
+    //layout of the undo records returned by doMove
+    private static final int UNDO_TO_SHIFT = 6;
+    private static final int UNDO_MOVED_SHIFT = 12;
+    private static final int UNDO_CAPTURED_SHIFT = 16;
+    private static final int UNDO_RIGHTS_SHIFT = 20;
+    private static final long SQUARE_MASK = 0x3F;
+    private static final long PIECE_MASK = 0xF;
+    private static final long RIGHTS_MASK = 0x7FF;
+
+    //castling rights still held after a move from or to each square
+    private static final int[] CASTLING_KEPT = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ALL_CASTLING);
+        CASTLING_KEPT[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[7] &= ~WHITE_KINGSIDE;
+        CASTLING_KEPT[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_KEPT[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[63] &= ~BLACK_KINGSIDE;
+    }
+
+    //a repeated position can only come after the last pawn move or capture, and the
+    //fifty-move rule ends the game 100 plies after that, so 128 keys always cover it
+    private static final int HISTORY_SIZE = 128;
+    private static final int HISTORY_MASK = HISTORY_SIZE - 1;
+    private static final int FIFTY_MOVE_PLIES = 100;
+    private static final Gson GSON = new Gson();
+
     @Expose private TeamColor teamTurn;
-    @Expose private ChessBoard currentBoard = new ChessBoard();
+    @Expose private ChessBoard currentBoard;
     public boolean gameOver = false;
 
+    //castling rights and en passant square, updated by every move
+    private int specialRights = ALL_CASTLING;
+
+    //scratch space for validating moves in makeMove
+    private transient int[] moveBuffer;
+
+    //Zobrist keys of the positions since the last pawn move or capture, indexed by halfmove clock.
+    //Left out of the JSON clients are sent; toStoredJson keeps them for stored games
+    private transient long[] history = new long[HISTORY_SIZE];
+    private transient int halfmoveClock;
+    private transient int repetitions;
+
     public ChessGame() {
         teamTurn = TeamColor.WHITE;
         currentBoard = new ChessBoard();
         currentBoard.resetBoard();
+        startHistory(0);
+    }
+
+    //for copying chess games, including the position history
+    public ChessGame(ChessGame other) {
+        teamTurn = other.teamTurn;
+        currentBoard = (other.currentBoard == null) ? null : new ChessBoard(other.currentBoard);
+        gameOver = other.gameOver;
+        specialRights = other.specialRights;
+        history = (other.history == null) ? null : other.history.clone();
+        halfmoveClock = other.halfmoveClock;
+        repetitions = other.repetitions;
     }
 
     /**
@@ -36,6 +102,8 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.teamTurn = team;
+        //an en passant capture is only open to the team that moves right after the double push
+        specialRights &= ALL_CASTLING;
     }
 
     /**
@@ -54,33 +122,7 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece movingPiece = currentBoard.getPiece(startPosition);
-        if (movingPiece == null) {
-            return null;
-        }
-
-        TeamColor teamColor = movingPiece.getTeamColor();
-        Collection<ChessMove> possibleMoves = movingPiece.pieceMoves(currentBoard, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-        for (ChessMove move : possibleMoves) {
-            //Copy the current board to a simulation board
-            ChessBoard simulatedBoard = new ChessBoard(currentBoard);
-            ChessGame simulatedGame = new ChessGame();
-
-            simulatedGame.setBoard(simulatedBoard);
-            simulatedGame.setTeamTurn(this.teamTurn);  //probably unecessary, but set team
-
-            //Simulate the move
-            simulatedBoard.addPiece(move.getEndPosition(), movingPiece);
-            simulatedBoard.addPiece(startPosition, null);
-
-            // No check = valid
-            if (!simulatedGame.isInCheck(teamColor)) {
-                validMoves.add(move);
-            }
-        }
-        return validMoves;
+        return LegalMoveGenerator.getLegalMoves(currentBoard, startPosition, getCastlingRights(), getEnPassantSquare());
     }
 
     /**
@@ -90,147 +132,198 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPosition start = move.getStartPosition();
-        ChessPiece.PieceType promotionPiece = move.getPromotionPiece();
-
-        //check if move is valid
-        Collection<ChessMove> moves = validMoves(start);
-        if (moves == null || !moves.contains(move)) {
+        if (!onBoard(move.getStartPosition()) || !onBoard(move.getEndPosition())) {
             throw new InvalidMoveException("Invalid move: No valid moves from this position.");
         }
+        int encoded = Move.of(move);
+        int start = Move.from(encoded);
 
-        //check for piece
-        ChessPiece movingPiece = currentBoard.getPiece(start);
-        if (movingPiece == null) {
-            throw new InvalidMoveException("Invalid move: No piece at the starting position.");
+        //check if move is valid
+        if (moveBuffer == null) {
+            moveBuffer = new int[LegalMoveGenerator.MAX_MOVES];
+        }
+        int count = LegalMoveGenerator.generateMoves(this, start, moveBuffer);
+        int legal = -1;
+        for (int i = 0; i < count && legal < 0; i++) {
+            if (Move.sameMove(moveBuffer[i], encoded)) {
+                legal = moveBuffer[i];
+            }
+        }
+        if (legal < 0) {
+            throw new InvalidMoveException("Invalid move: No valid moves from this position.");
         }
 
         //correct team moving?
-        TeamColor teamColor = movingPiece.getTeamColor();
-        if (teamColor != teamTurn) {
+        if (currentBoard.pieceIndexAt(start) / 6 != teamTurn.ordinal()) {
             throw new InvalidMoveException("Invalid move: It is not your turn.");
         }
         
-        //update board state
-        if (promotionPiece != null) {
-            currentBoard.addPiece(move.getEndPosition(), new ChessPiece (teamColor, promotionPiece));
-        }
-        else {
-            currentBoard.addPiece(move.getEndPosition(), movingPiece);
-        }
-        currentBoard.addPiece(start, null);
-
-        //change team turn
-        if (teamTurn == TeamColor.WHITE) {
-            teamTurn = TeamColor.BLACK;
-        }
-        else {
-            teamTurn = TeamColor.WHITE;
-        }
+        //update board state and change team turn
+        long key = getZobristKey();
+        long undo = doMove(legal);
+        recordMove(key, undo);
     }
 
     /**
-     * Determines if the given team is in check
+     * Makes a move in place without checking that it is legal, and passes the
+     * turn to the other team. The returned undo record holds everything needed
+     * to take the move back with {@link #undoMove(long)}, so callers can try a
+     * move on this game and restore it instead of copying the board.
+     * <p>
+     * A king moving two squares castles, and a pawn moving to the en passant square
+     * captures en passant. The castling rights and en passant square are updated from
+     * the squares the move touches.
+     * <p>
+     * Moves must be undone in the reverse order they were made.
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move chess move to perform, which must start on an occupied square
+     * @return undo record for this move
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingSpace = findKing(teamColor);
-        int row = kingSpace.getRow() + ((teamColor == TeamColor.WHITE) ? 1 : -1);
-        int col;
-        ChessPosition attackerPos;
-        ChessPiece attacker;
-        
-        for (int i = -1; i <= 1; i +=2) {
-            col = kingSpace.getColumn() + i;
-            if (row < 1 || row > 8 || col < 1 || col > 8) {                    
-                continue;
-            }
-            else {
-                attackerPos = new ChessPosition (row, col);
-                attacker = currentBoard.getPiece(attackerPos);
+    public long doMove(ChessMove move) {
+        return doMove(Move.of(move));
+    }
 
-                if (attacker == null) {
-                    continue;
-                }
+    /**
+     * Makes a move encoded as an int, as produced by LegalMoveGenerator.generateMoves,
+     * in place. Works exactly like {@link #doMove(ChessMove)}.
+     *
+     * @param move encoded move, see {@link Move}
+     * @return undo record for this move
+     */
+    public long doMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
 
-                if (attacker.getTeamColor() != teamColor && attacker.getPieceType() == ChessPiece.PieceType.PAWN) {
-                    return true;
-                }
-            }
+        int moved = currentBoard.remove(from);
+        if (moved < 0) {
+            throw new IllegalArgumentException("No piece at " + ChessPosition.fromSquareIndex(from));
         }
-        
-        Collection<ChessMove> diagonals = BishopMove.getBishopMoves(currentBoard, kingSpace);
-
-        if (diagonals != null) {
-            for (ChessMove move : diagonals) {
-                attackerPos = move.getEndPosition();
-                attacker = currentBoard.getPiece(attackerPos);
-
-                if (attacker == null) {
-                    continue;
-                }
-
-                if (attacker.getTeamColor() != teamColor && (attacker.getPieceType() == ChessPiece.PieceType.BISHOP || 
-                    attacker.getPieceType() == ChessPiece.PieceType.QUEEN)) {
-                    return true;
-                }
-            }
+        int previousRights = specialRights;
+        int type = moved % 6;
+        int captured;
+        if (type == ChessPiece.PieceType.PAWN.ordinal() && to == getEnPassantSquare()) {
+            captured = currentBoard.remove(enPassantVictim(moved, to));
+        }
+        else {
+            captured = currentBoard.remove(to);
+        }
+        int placed = moved;
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            placed = (moved / 6) * 6 + promotion.ordinal();
+        }
+        currentBoard.place(to, placed);
+        if (type == ChessPiece.PieceType.KING.ordinal() && Math.abs(to - from) == 2) {
+            //the rook jumps to the square the king passed over
+            currentBoard.place((from + to) / 2, currentBoard.remove(castlingRook(from, to)));
         }
 
-        Collection<ChessMove> straights = RookMove.getRookMoves(currentBoard, kingSpace);
-        if (straights != null) {
-            for (ChessMove move : straights) {
-                attackerPos = move.getEndPosition();
-                attacker = currentBoard.getPiece(attackerPos);
-
-                if (attacker == null) {
-                    continue;
-                }
-
-                if (attacker.getTeamColor() != teamColor && (attacker.getPieceType() == ChessPiece.PieceType.ROOK || 
-                    attacker.getPieceType() == ChessPiece.PieceType.QUEEN)) {
-                    return true;
-                }
+        int rights = previousRights & CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        if (type == ChessPiece.PieceType.PAWN.ordinal() && Math.abs(to - from) == 16) {
+            int passed = (from + to) / 2;
+            //only record the square if an enemy pawn could capture there, so positions
+            //that differ in nothing else still repeat
+            long enemyPawns = currentBoard.getPieces(otherTeam(teamTurn), ChessPiece.PieceType.PAWN);
+            if ((AttackTables.pawnAttacks(teamTurn, passed) & enemyPawns) != 0) {
+                rights |= (passed + 1) << EN_PASSANT_SHIFT;
             }
         }
-        
-        Collection<ChessMove> knightAttacks = KnightMove.getKnightMoves(currentBoard, kingSpace);
-
-        if (knightAttacks != null) {
-            for (ChessMove move : knightAttacks) {
-                attackerPos = move.getEndPosition();
-                attacker = currentBoard.getPiece(attackerPos);
-
-                if (attacker == null) {
-                    continue;
-                }  
+        specialRights = rights;
+        teamTurn = otherTeam(teamTurn);
+
+        return from
+                | (long) to << UNDO_TO_SHIFT
+                | (long) moved << UNDO_MOVED_SHIFT
+                | (long) (captured + 1) << UNDO_CAPTURED_SHIFT
+                | (long) previousRights << UNDO_RIGHTS_SHIFT;
+    }
 
-                if (attacker.getTeamColor() != teamColor && attacker.getPieceType() == ChessPiece.PieceType.KNIGHT) {
-                    return true;
-                }
-            }
+    /**
+     * Takes back a move made by {@link #doMove(ChessMove)}
+     *
+     * @param undo the undo record returned when the move was made
+     */
+    public void undoMove(long undo) {
+        int from = (int) (undo & SQUARE_MASK);
+        int to = (int) (undo >>> UNDO_TO_SHIFT & SQUARE_MASK);
+        int moved = (int) (undo >>> UNDO_MOVED_SHIFT & PIECE_MASK);
+        int captured = (int) (undo >>> UNDO_CAPTURED_SHIFT & PIECE_MASK) - 1;
+        specialRights = (int) (undo >>> UNDO_RIGHTS_SHIFT & RIGHTS_MASK);
+        int type = moved % 6;
+
+        currentBoard.remove(to);
+        currentBoard.place(from, moved);
+        if (type == ChessPiece.PieceType.KING.ordinal() && Math.abs(to - from) == 2) {
+            currentBoard.place(castlingRook(from, to), currentBoard.remove((from + to) / 2));
+        }
+        if (captured >= 0) {
+            boolean enPassant = type == ChessPiece.PieceType.PAWN.ordinal() && to == getEnPassantSquare();
+            currentBoard.place(enPassant ? enPassantVictim(moved, to) : to, captured);
         }
+        teamTurn = otherTeam(teamTurn);
+    }
 
-        Collection<ChessMove> kingAttacks = KingMove.getKingMoves(currentBoard, kingSpace);
+    /**
+     * @return square of the rook that castles with a king moving from one square to another
+     */
+    private static int castlingRook(int kingFrom, int kingTo) {
+        return (kingTo > kingFrom) ? kingFrom + 3 : kingFrom - 4;
+    }
 
-        if (kingAttacks != null) {
-            for (ChessMove move : kingAttacks) {
-                attackerPos = move.getEndPosition();
-                attacker = currentBoard.getPiece(attackerPos);
+    /**
+     * @return square of the pawn captured by a pawn taking en passant on the target square
+     */
+    private static int enPassantVictim(int pawn, int target) {
+        return (pawn < 6) ? target - 8 : target + 8;
+    }
 
-                if (attacker == null) {
-                    continue;
-                }  
+    /**
+     * Gets which castling moves are still allowed. A right is lost once the king or
+     * that rook has moved, or the rook was captured.
+     *
+     * @return bitwise or of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE
+     */
+    public int getCastlingRights() {
+        return specialRights & ALL_CASTLING;
+    }
 
-                if (attacker.getTeamColor() != teamColor && attacker.getPieceType() == ChessPiece.PieceType.KING) {
-                    return true;
-                }
+    /**
+     * Gets the square a pawn passed over with a double move on the last turn, if an
+     * enemy pawn could capture it there en passant
+     *
+     * @return the square index, or -1 if there is no en passant capture
+     */
+    public int getEnPassantSquare() {
+        return (specialRights >>> EN_PASSANT_SHIFT) - 1;
+    }
+
+    /**
+     * Sets the castling rights and en passant square, as read from a FEN string. Rights
+     * for a king or rook that is not on its starting square are dropped, and like
+     * doMove, so is an en passant square no pawn of the team to move can capture on.
+     */
+    void setSpecialRights(int castlingRights, int enPassantSquare) {
+        specialRights = castlingRights & castlingRightsOf(currentBoard);
+        if (enPassantSquare >= 0) {
+            long pawns = currentBoard.getPieces(teamTurn, ChessPiece.PieceType.PAWN);
+            if ((AttackTables.pawnAttacks(otherTeam(teamTurn), enPassantSquare) & pawns) != 0) {
+                specialRights |= (enPassantSquare + 1) << EN_PASSANT_SHIFT;
             }
         }
+    }
 
-        return false;
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        int king = currentBoard.getKingSquare(teamColor);
+        if (king < 0) {
+            return false;
+        }
+        return currentBoard.isAttacked(king, otherTeam(teamColor));
     }
 
     /**
@@ -268,6 +361,8 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         currentBoard = board;
+        //a king and rook still on their starting squares are taken to have never moved
+        specialRights = castlingRightsOf(board);
     }
 
     /**
@@ -281,49 +376,250 @@ public class ChessGame {
 
     public void resetBoard() {
         currentBoard.resetBoard();
+        specialRights = ALL_CASTLING;
     }
 
-    private ChessPosition findKing(TeamColor color) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = currentBoard.getPiece(pos);
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == color) {
-                    return pos;
-                }
+    /**
+     * Static evaluation of the position: material plus piece-square tables. The
+     * board updates it with every move and undo, so this is a field read.
+     *
+     * @return score in centipawns from white's point of view, positive when white is better
+     */
+    public int evaluate() {
+        return currentBoard.getEvaluation();
+    }
+
+    /**
+     * Gets the number of moves made since the last pawn move or capture
+     *
+     * @return the halfmove clock, in plies
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Determines if the current position has occurred three times with the same
+     * team to move since the last pawn move or capture
+     *
+     * @return True if the game is drawn by threefold repetition
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions >= 2;
+    }
+
+    /**
+     * Determines if fifty moves by each team have been made without a pawn move
+     * or capture
+     *
+     * @return True if the game is drawn by the fifty-move rule
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= FIFTY_MOVE_PLIES;
+    }
+
+    /**
+     * Determines if the game is drawn by threefold repetition or the fifty-move
+     * rule. Stalemate is reported separately by {@link #isInStalemate(TeamColor)}.
+     *
+     * @return True if the game is drawn
+     */
+    public boolean isDraw() {
+        return isThreefoldRepetition() || isFiftyMoveDraw();
+    }
+
+    /**
+     * Gets the positions since the last pawn move or capture, the only ones that
+     * can repeat
+     *
+     * @return Zobrist keys of the positions, oldest first, ending with the current one
+     */
+    public long[] getHistory() {
+        //the board was set up some other way since the last move, so only the current position is known
+        if (history == null || history[halfmoveClock & HISTORY_MASK] != getZobristKey()) {
+            return new long[] {getZobristKey()};
+        }
+        int oldest = Math.max(0, halfmoveClock - HISTORY_MASK);
+        long[] keys = new long[halfmoveClock - oldest + 1];
+        for (int ply = oldest; ply <= halfmoveClock; ply++) {
+            keys[ply - oldest] = history[ply & HISTORY_MASK];
+        }
+        return keys;
+    }
+
+    /**
+     * Serializes the game for storage. Plain Gson, which is what clients are
+     * sent, leaves out the position history; this keeps it, so repetitions and
+     * the fifty-move rule count the moves made before the game is reloaded.
+     *
+     * @return the game as JSON, read back with {@link #fromStoredJson(String)}
+     */
+    public String toStoredJson() {
+        JsonObject json = GSON.toJsonTree(this).getAsJsonObject();
+        json.addProperty("halfmoveClock", halfmoveClock);
+        json.add("history", GSON.toJsonTree(getHistory()));
+        return json.toString();
+    }
+
+    /**
+     * @param json a game written by {@link #toStoredJson()}, or by plain Gson
+     * @return the game, with its position history when the JSON has one
+     */
+    public static ChessGame fromStoredJson(String json) {
+        JsonObject tree = JsonParser.parseString(json).getAsJsonObject();
+        ChessGame game = GSON.fromJson(tree, ChessGame.class);
+        JsonElement clock = tree.get("halfmoveClock");
+        JsonElement keys = tree.get("history");
+        if (clock == null || keys == null || !keys.isJsonArray()) {
+            game.startHistory(0);
+            return game;
+        }
+        game.restoreHistory(GSON.fromJson(keys, long[].class), clock.getAsInt());
+        return game;
+    }
+
+    /**
+     * @param keys  Zobrist keys of the positions, oldest first, ending with the current one
+     * @param clock halfmove clock of the current position
+     */
+    private void restoreHistory(long[] keys, int clock) {
+        if (keys.length == 0 || keys.length > HISTORY_SIZE || keys.length > clock + 1
+                || keys[keys.length - 1] != getZobristKey()) {
+            startHistory(clock);
+            return;
+        }
+        history = new long[HISTORY_SIZE];
+        halfmoveClock = clock;
+        int oldest = clock - keys.length + 1;
+        for (int i = 0; i < keys.length; i++) {
+            history[(oldest + i) & HISTORY_MASK] = keys[i];
+        }
+        countRepetitions();
+    }
+
+    /**
+     * Clears the position history so it starts at the current position
+     *
+     * @param clock halfmove clock of the current position
+     */
+    void startHistory(int clock) {
+        if (history == null) {
+            history = new long[HISTORY_SIZE];
+        }
+        else {
+            Arrays.fill(history, 0L);
+        }
+        halfmoveClock = clock;
+        repetitions = 0;
+        history[clock & HISTORY_MASK] = getZobristKey();
+    }
+
+    /**
+     * Adds the position reached by a move made with makeMove to the history and
+     * counts how often it has occurred before
+     *
+     * @param previousKey Zobrist key of the position the move was made from
+     * @param undo        undo record of the move
+     */
+    private void recordMove(long previousKey, long undo) {
+        //the board was set up some other way since the last move, so start over from there
+        if (history == null || history[halfmoveClock & HISTORY_MASK] != previousKey) {
+            history = new long[HISTORY_SIZE];
+            halfmoveClock = 0;
+            history[0] = previousKey;
+        }
+
+        int moved = (int) (undo >>> UNDO_MOVED_SHIFT & PIECE_MASK);
+        boolean capture = (undo >>> UNDO_CAPTURED_SHIFT & PIECE_MASK) != 0;
+        long key = getZobristKey();
+
+        if (capture || moved % 6 == ChessPiece.PieceType.PAWN.ordinal()) {
+            //no earlier position can come back, so only the slots used since the last reset need clearing
+            Arrays.fill(history, 0, Math.min(halfmoveClock, HISTORY_MASK) + 1, 0L);
+            halfmoveClock = 0;
+            repetitions = 0;
+            history[0] = key;
+            return;
+        }
+
+        halfmoveClock++;
+        history[halfmoveClock & HISTORY_MASK] = key;
+        countRepetitions();
+    }
+
+    /**
+     * Counts the earlier occurrences of the current position in the history
+     */
+    private void countRepetitions() {
+        long key = history[halfmoveClock & HISTORY_MASK];
+        //same team to move only every other ply, and nothing before the last reset can match
+        repetitions = 0;
+        int oldest = Math.max(0, halfmoveClock - FIFTY_MOVE_PLIES);
+        for (int i = halfmoveClock - 2; i >= oldest; i -= 2) {
+            if (history[i & HISTORY_MASK] == key) {
+                repetitions++;
             }
         }
-    return null;
-}
+    }
 
-    private boolean noValidMoves(TeamColor teamColor) {
-        //run through each space
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition position = new ChessPosition(i, j);
-                ChessPiece piece = currentBoard.getPiece(position);
-
-                //Is piece valid?
-                if (piece == null) {
-                    continue;
-                }
-
-                //Is this piece the same team? Can it make a valid move?
-                if (piece.getTeamColor() == teamColor && !(validMoves(position).isEmpty())) {
-                    return false; //Yes, then valid moves remain
-                }
+    /**
+     * Gets the Zobrist key of the position: the pieces, kept up to date by the
+     * board as moves are made, the side to move, the castling rights and the
+     * en passant square
+     *
+     * @return 64-bit hash of the position
+     */
+    public long getZobristKey() {
+        long key = currentBoard.getZobristKey();
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.blackToMove();
+        }
+        key ^= Zobrist.castling(getCastlingRights());
+        int enPassant = getEnPassantSquare();
+        if (enPassant >= 0) {
+            key ^= Zobrist.enPassant(enPassant);
+        }
+        return key;
+    }
+
+    private static int castlingRightsOf(ChessBoard board) {
+        int rights = 0;
+        for (TeamColor color : TeamColor.values()) {
+            int home = (color == TeamColor.WHITE) ? 0 : 56;
+            int shift = (color == TeamColor.WHITE) ? 0 : 2;
+            int rook = ChessBoard.pieceIndex(color, ChessPiece.PieceType.ROOK);
+            if (board.pieceIndexAt(home + 4) != ChessBoard.pieceIndex(color, ChessPiece.PieceType.KING)) {
+                continue;
+            }
+            if (board.pieceIndexAt(home + 7) == rook) {
+                rights |= WHITE_KINGSIDE << shift;
+            }
+            if (board.pieceIndexAt(home) == rook) {
+                rights |= WHITE_QUEENSIDE << shift;
             }
         }
-        return true; //None of the pieces could move
+        return rights;
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    private static TeamColor otherTeam(TeamColor color) {
+        return (color == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
+    private boolean noValidMoves(TeamColor teamColor) {
+        return !LegalMoveGenerator.hasLegalMove(currentBoard, teamColor, getCastlingRights(), getEnPassantSquare());
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((teamTurn == null) ? 0 : teamTurn.hashCode());
-        result = prime * result + ((currentBoard == null) ? 0 : currentBoard.hashCode());
-        return result;
+        if (currentBoard == null) {
+            return (teamTurn == null) ? 0 : teamTurn.hashCode();
+        }
+        return Long.hashCode(getZobristKey());
     }
 
     @Override
@@ -338,7 +634,7 @@ public class ChessGame {
             return false;
         }
         ChessGame other = (ChessGame) obj;
-        if (teamTurn != other.teamTurn) {
+        if (teamTurn != other.teamTurn || specialRights != other.specialRights) {
             return false;
         }
         if (currentBoard == null) {
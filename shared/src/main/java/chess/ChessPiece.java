@@ -1,30 +1,65 @@
 package chess;
 
+import java.io.IOException;
 import java.util.Collection;
 import piecemoves.*;
 import java.util.Objects;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Represents a single chess piece
  * <p>
+ * There are only 12 different pieces, so {@link #of(ChessGame.TeamColor, PieceType)}
+ * hands out one shared instance of each. The board returns those instances, and
+ * they cannot be changed with the setters.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPiece.PieceAdapter.class)
 public class ChessPiece {
+    private static final ChessPiece[][] SHARED = new ChessPiece[2][6];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                SHARED[color.ordinal()][type.ordinal()] = new ChessPiece(color, type, true);
+            }
+        }
+    }
+
     @Expose private ChessGame.TeamColor pieceColor;
     @Expose private ChessPiece.PieceType type;
     private Collection<ChessMove> moves;
+    private final transient boolean shared;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        this(pieceColor, type, false);
+    }
+
+    private ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type, boolean shared) {
         this.pieceColor = pieceColor;
         this.type = type;
+        this.shared = shared;
+    }
+
+    /**
+     * @return the shared piece of the given color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return SHARED[pieceColor.ordinal()][type.ordinal()];
     }
 
     //for copying chess pieces
      public ChessPiece(ChessPiece other) {
         this.pieceColor = other.pieceColor;
         this.type = other.type;
+        this.shared = false;
     }
 
     /**
@@ -53,14 +88,28 @@ public class ChessPiece {
         return type;
     }
 
+    /**
+     * @throws UnsupportedOperationException if this is a shared piece from {@link #of}
+     */
     public void setTeamColor(ChessGame.TeamColor pieceColor) {
+        checkNotShared();
         this.pieceColor = pieceColor;
     }
 
+    /**
+     * @throws UnsupportedOperationException if this is a shared piece from {@link #of}
+     */
     public void setPieceType(ChessPiece.PieceType type) {
+        checkNotShared();
         this.type = type;
     }
 
+    private void checkNotShared() {
+        if (shared) {
+            throw new UnsupportedOperationException("Shared pieces can't be changed, use ChessPiece.of instead");
+        }
+    }
+
     /**
      * Calculates all the positions a chess piece can move to
      * Does not take into account moves that are illegal due to leaving the king in
@@ -112,5 +161,50 @@ public class ChessPiece {
     public String toString() {
         return pieceColor + " " + type;
     }
+
+    /**
+     * Reads pieces in their usual {@code {"pieceColor":"WHITE","type":"KING"}} form as the shared instances
+     */
+    static class PieceAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            if (piece == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("pieceColor").value(piece.pieceColor == null ? null : piece.pieceColor.name());
+            out.name("type").value(piece.type == null ? null : piece.type.name());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ChessGame.TeamColor color = null;
+            PieceType type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                }
+                else if (name.equals("pieceColor")) {
+                    color = ChessGame.TeamColor.valueOf(in.nextString());
+                }
+                else if (name.equals("type")) {
+                    type = PieceType.valueOf(in.nextString());
+                }
+                else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return (color == null || type == null) ? new ChessPiece(color, type) : of(color, type);
+        }
+    }
 }
 
@@ -1,22 +1,50 @@
 package chess;
 
-import java.util.Objects;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 
 /**
  * Represents a single square position on a chess board
  * <p>
+ * Positions never change, so the 64 squares of the board are created once.
+ * Use {@link #of(int, int)} or {@link #fromSquareIndex(int)} rather than the
+ * constructor to get them without allocating.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPosition.PositionAdapter.class)
 public class ChessPosition {
-    private int row;
-    private int col;
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
+    private final int row;
+    private final int col;
 
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * @return the shared position for a square on the board, or a new one if row or col is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -33,7 +61,22 @@ public class ChessPosition {
         return col;
     }
 
-     @Override
+    /**
+     * @return the bitboard square index of this position, 0 (a1) through 63 (h8)
+     */
+    public int getSquareIndex() {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @param square a bitboard square index, 0 (a1) through 63 (h8)
+     * @return the position of that square
+     */
+    public static ChessPosition fromSquareIndex(int square) {
+        return SQUARES[square];
+    }
+
+    @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
@@ -44,11 +87,54 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 
     @Override
     public String toString() {
         return String.format("%c%c", (char) ('a' + col - 1), (char) '0' + row);
     }
+
+    /**
+     * Reads positions in their usual {@code {"row":1,"col":5}} form as the shared
+     * instances, so moves sent by clients do not allocate positions
+     */
+    static class PositionAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            if (position == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("row").value(position.row);
+            out.name("col").value(position.col);
+            out.endObject();
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            int row = 0;
+            int col = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("row")) {
+                    row = in.nextInt();
+                }
+                else if (name.equals("col")) {
+                    col = in.nextInt();
+                }
+                else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return of(row, col);
+        }
+    }
 }
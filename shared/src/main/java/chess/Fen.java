@@ -0,0 +1,159 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, e.g.
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ * <p>
+ * Every field but the fullmove number is used. The fullmove number is accepted
+ * but ignored, and written as 1.
+ */
+public class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "kqbnrp";
+    //in the order of the castling right bits in ChessGame
+    private static final String CASTLING_LETTERS = "KQkq";
+
+    /**
+     * @param fen a FEN string
+     * @return a new game set up in the described position
+     * @throws IllegalArgumentException if any field but the fullmove number is malformed
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN needs 8 ranks: " + fen);
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 8) {
+                    throw new IllegalArgumentException("Bad FEN rank '" + ranks[i] + "': " + fen);
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, ChessPiece.PieceType.values()[type]));
+                col++;
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("Bad FEN rank '" + ranks[i] + "': " + fen);
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        if (fields.length > 1 && fields[1].equals("b")) {
+            game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        }
+        else if (fields.length > 1 && !fields[1].equals("w")) {
+            throw new IllegalArgumentException("Bad FEN side to move '" + fields[1] + "': " + fen);
+        }
+
+        int castlingRights = 0;
+        if (fields.length > 2 && !fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                int right = CASTLING_LETTERS.indexOf(c);
+                if (right < 0) {
+                    throw new IllegalArgumentException("Bad FEN castling rights '" + fields[2] + "': " + fen);
+                }
+                castlingRights |= 1 << right;
+            }
+        }
+        int enPassantSquare = -1;
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            enPassantSquare = parseSquare(fields[3]);
+            if (enPassantSquare < 0) {
+                throw new IllegalArgumentException("Bad FEN en passant square '" + fields[3] + "': " + fen);
+            }
+        }
+        game.setSpecialRights(castlingRights, enPassantSquare);
+
+        int halfmoveClock = 0;
+        if (fields.length > 4) {
+            try {
+                halfmoveClock = Integer.parseInt(fields[4]);
+            } catch (NumberFormatException e) {
+                halfmoveClock = -1;
+            }
+            if (halfmoveClock < 0) {
+                throw new IllegalArgumentException("Bad FEN halfmove clock '" + fields[4] + "': " + fen);
+            }
+        }
+        game.startHistory(halfmoveClock);
+        return game;
+    }
+
+    /**
+     * @return the FEN string of the game's position
+     */
+    public static String toFen(ChessGame game) {
+        StringBuilder sb = new StringBuilder();
+        ChessBoard board = game.getBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+                sb.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row > 1) {
+                sb.append('/');
+            }
+        }
+        sb.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b");
+        sb.append(' ');
+        int castlingRights = game.getCastlingRights();
+        if (castlingRights == 0) {
+            sb.append('-');
+        }
+        for (int right = 0; right < CASTLING_LETTERS.length(); right++) {
+            if ((castlingRights & (1 << right)) != 0) {
+                sb.append(CASTLING_LETTERS.charAt(right));
+            }
+        }
+        int enPassantSquare = game.getEnPassantSquare();
+        sb.append(' ');
+        if (enPassantSquare < 0) {
+            sb.append('-');
+        }
+        else {
+            sb.append((char) ('a' + enPassantSquare % 8)).append(enPassantSquare / 8 + 1);
+        }
+        sb.append(' ').append(game.getHalfmoveClock()).append(" 1");
+        return sb.toString();
+    }
+
+    /**
+     * @return square index of a square like "e3", or -1 if it is not one
+     */
+    private static int parseSquare(String square) {
+        if (square.length() != 2) {
+            return -1;
+        }
+        int col = square.charAt(0) - 'a';
+        int row = square.charAt(1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            return -1;
+        }
+        return row * 8 + col;
+    }
+}
@@ -0,0 +1,125 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import piecemoves.LegalMoveGenerator;
+
+/**
+ * Checks stored games for states the rules cannot reach, in bulk and across
+ * all cores. Everything here runs on the bitboards and int move buffers, so a
+ * check allocates next to nothing beyond its list of problems.
+ */
+public class GameValidator {
+    private static final long BACK_RANKS = 0xFF000000000000FFL;
+
+    /**
+     * @return what is wrong with the game, or an empty list if it could have come from legal play
+     */
+    public static List<String> problems(ChessGame game) {
+        List<String> problems = new ArrayList<>();
+        if (game == null || game.getBoard() == null) {
+            problems.add("no board");
+            return problems;
+        }
+        ChessBoard board = game.getBoard();
+        if (game.getTeamTurn() == null) {
+            problems.add("no team to move");
+            return problems;
+        }
+        boolean kings = true;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int count = Long.bitCount(board.getPieces(color, ChessPiece.PieceType.KING));
+            if (count != 1) {
+                problems.add(color + " has " + count + " kings");
+                kings = false;
+            }
+            if ((board.getPieces(color, ChessPiece.PieceType.PAWN) & BACK_RANKS) != 0) {
+                problems.add(color + " has a pawn on the first or last rank");
+            }
+        }
+        if (!kings) {
+            return problems;
+        }
+
+        ChessGame.TeamColor waiting = (game.getTeamTurn() == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (game.isInCheck(waiting)) {
+            problems.add(waiting + " is in check but it is " + game.getTeamTurn() + "'s turn");
+        }
+        if (!game.gameOver && LegalMoveGenerator.generateMoves(game, new int[LegalMoveGenerator.MAX_MOVES]) == 0) {
+            problems.add(game.getTeamTurn() + " has no legal move but the game is not over");
+        }
+        return problems;
+    }
+
+    /**
+     * Checks a game's position, replays its logged moves and checks that they
+     * lead to the position
+     *
+     * @param log the game's moves and the position they start from
+     * @return what is wrong with the game or its moves, or an empty list if neither has a problem
+     */
+    public static List<String> problems(ChessGame game, MoveLog log) {
+        List<String> problems = problems(game);
+        ChessGame replayed = new ChessGame(log.start());
+        int illegal = replay(replayed, log.moves());
+        if (illegal >= 0) {
+            problems.add("move " + (log.firstPly() + illegal) + " ("
+                    + Move.toString(Move.of(log.moves().get(illegal))) + ") is illegal");
+        }
+        else if (game != null && !replayed.equals(game)) {
+            problems.add("the position does not match the logged moves");
+        }
+        return problems;
+    }
+
+    /**
+     * Checks every game in parallel on the common fork/join pool
+     *
+     * @return the problems of each game, in the same order as the games
+     */
+    public static List<List<String>> validateAll(List<ChessGame> games) {
+        return games.parallelStream().map(GameValidator::problems).toList();
+    }
+
+    /**
+     * Checks every game and replays its moves in parallel on the common fork/join pool
+     *
+     * @param logs the move log of each game, in the same order as the games
+     * @return the problems of each game, in the same order as the games
+     */
+    public static List<List<String>> validateAll(List<ChessGame> games, List<MoveLog> logs) {
+        return IntStream.range(0, games.size()).parallel()
+                .mapToObj(i -> problems(games.get(i), logs.get(i)))
+                .toList();
+    }
+
+    /**
+     * Replays moves from a starting position. makeMove checks each move against
+     * the int move buffer of the piece, so no move collections are built.
+     *
+     * @param start position the moves start from, which is not changed
+     * @param moves moves in the order they were played
+     * @return index of the first illegal move, or -1 if every move is legal
+     */
+    public static int firstIllegalMove(ChessGame start, List<ChessMove> moves) {
+        return replay(new ChessGame(start), moves);
+    }
+
+    /**
+     * Makes moves on a game, stopping at the first illegal one
+     *
+     * @return index of the first illegal move, or -1 if every move is legal
+     */
+    private static int replay(ChessGame game, List<ChessMove> moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            try {
+                game.makeMove(moves.get(i));
+            } catch (InvalidMoveException e) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,153 @@
+package chess;
+
+/**
+ * Moves packed into an int, for move generation and search where allocating a
+ * ChessMove and two ChessPositions per candidate move would dominate the cost.
+ * <pre>
+ * bits  0-5   start square index
+ * bits  6-11  end square index
+ * bits 12-14  promotion piece type ordinal + 1, or 0 for none
+ * bits 15-17  flags: capture, en passant, castle
+ * </pre>
+ * The flags are filled in by the move generator for move ordering and display.
+ * ChessGame.doMove works out captures, castling and en passant from the board,
+ * so a move converted from a ChessMove, which has no flags, plays the same way.
+ * Use {@link #sameMove(int, int)} to compare moves that may differ only in flags.
+ */
+public class Move {
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLE = 1 << 17;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final int MOVE_MASK = CAPTURE - 1;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final String PROMOTION_LETTERS = "kqbnrp";
+
+    /**
+     * @param from start square index
+     * @param to   end square index
+     * @return the encoded move, without a promotion or flags
+     */
+    public static int of(int from, int to) {
+        return from | to << TO_SHIFT;
+    }
+
+    /**
+     * @param promotion piece type a pawn promotes to, or null
+     * @return the encoded move, without flags
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion) {
+        int move = of(from, to);
+        if (promotion != null) {
+            move |= (promotion.ordinal() + 1) << PROMOTION_SHIFT;
+        }
+        return move;
+    }
+
+    /**
+     * @return the encoded form of a ChessMove, without flags
+     */
+    public static int of(ChessMove move) {
+        return of(move.getStartPosition().getSquareIndex(), move.getEndPosition().getSquareIndex(),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return move >>> TO_SHIFT & SQUARE_MASK;
+    }
+
+    /**
+     * @return the piece type a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = move >>> PROMOTION_SHIFT & PROMOTION_MASK;
+        return (promotion == 0) ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    /**
+     * @return true if both moves have the same squares and promotion, whatever their flags
+     */
+    public static boolean sameMove(int a, int b) {
+        return ((a ^ b) & MOVE_MASK) == 0;
+    }
+
+    /**
+     * @return the move as a ChessMove, for handing to code outside the move generator
+     */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.fromSquareIndex(from(move)), ChessPosition.fromSquareIndex(to(move)),
+                promotion(move));
+    }
+
+    /**
+     * @return the move in long algebraic notation, e.g. "e2e4" or "e7e8q"
+     */
+    public static String toString(int move) {
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, from(move));
+        appendSquare(sb, to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            sb.append(PROMOTION_LETTERS.charAt(promotion.ordinal()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a move written by {@link #toString(int)}
+     *
+     * @param text long algebraic notation, e.g. "e2e4" or "e7e8q"
+     * @return the encoded move, without flags
+     * @throws IllegalArgumentException if the text is not a move
+     */
+    public static int parse(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw new IllegalArgumentException("Bad move '" + text + "'");
+        }
+        int from = parseSquare(text, 0);
+        int to = parseSquare(text, 2);
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            int type = PROMOTION_LETTERS.indexOf(text.charAt(4));
+            if (type < 0) {
+                throw new IllegalArgumentException("Bad promotion piece in move '" + text + "'");
+            }
+            promotion = TYPES[type];
+        }
+        return of(from, to, promotion);
+    }
+
+    private static int parseSquare(String text, int index) {
+        int col = text.charAt(index) - 'a';
+        int row = text.charAt(index + 1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            throw new IllegalArgumentException("Bad square in move '" + text + "'");
+        }
+        return row * 8 + col;
+    }
+
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + square % 8)).append(square / 8 + 1);
+    }
+}
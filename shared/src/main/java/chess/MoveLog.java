@@ -0,0 +1,14 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * The logged moves of a game and the position they were made from
+ *
+ * @param start     position before the first logged move: the initial position when
+ *                  every move was logged, or else a stored snapshot of the game
+ * @param firstPly  ply number of the first logged move, counting from 1
+ * @param moves     moves made from start, in order
+ */
+public record MoveLog(ChessGame start, int firstPly, List<ChessMove> moves) {
+}
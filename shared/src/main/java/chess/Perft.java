@@ -0,0 +1,156 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import piecemoves.LegalMoveGenerator;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft").
+ * The counts for well known positions are published, so perft checks the
+ * move generator exhaustively, and its run time is the standard measure of
+ * move generation speed.
+ * <p>
+ * Run {@code main} with a depth and an optional FEN to print the per-move
+ * breakdown ("divide") and nodes per second.
+ */
+public class Perft {
+
+    /**
+     * @param game  position to count from. It is changed while counting and restored before returning.
+     * @param depth number of plies to search
+     * @return number of positions reachable in exactly depth plies
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return perft(game, depth, new int[depth][LegalMoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * @param buffers one move buffer per remaining ply, so nothing is allocated while counting
+     */
+    private static long perft(ChessGame game, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = LegalMoveGenerator.generateMoves(game, moves);
+        //every legal move at the last ply is one leaf, so there is no need to play them
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            long undo = game.doMove(moves[i]);
+            nodes += perft(game, depth - 1, buffers);
+            game.undoMove(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * Perft with the root moves counted in parallel on the common fork/join pool
+     *
+     * @param game  position to count from, which is not changed
+     * @param depth number of plies to search
+     * @return number of positions reachable in exactly depth plies
+     */
+    public static long parallelPerft(ChessGame game, int depth) {
+        return parallelPerft(game, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Perft with the root moves counted in parallel. Each root move is one task
+     * with its own copy of the game, so the tasks share nothing.
+     *
+     * @param game  position to count from, which is not changed
+     * @param depth number of plies to search
+     * @param pool  pool to run the tasks on
+     * @return number of positions reachable in exactly depth plies
+     */
+    public static long parallelPerft(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(new ChessGame(game), depth);
+        }
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generateMoves(game, moves);
+        return pool.invoke(new RecursiveTask<Long>() {
+            @Override
+            protected Long compute() {
+                RootMove[] tasks = new RootMove[count];
+                for (int i = 0; i < count; i++) {
+                    tasks[i] = new RootMove(game, moves[i], depth - 1);
+                }
+                invokeAll(tasks);
+                long nodes = 0;
+                for (RootMove task : tasks) {
+                    nodes += task.join();
+                }
+                return nodes;
+            }
+        });
+    }
+
+    /**
+     * Counts the positions below one root move on a private copy of the game
+     */
+    private static class RootMove extends RecursiveTask<Long> {
+        private final ChessGame root;
+        private final int move;
+        private final int depth;
+
+        RootMove(ChessGame root, int move, int depth) {
+            this.root = root;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            ChessGame game = new ChessGame(root);
+            game.doMove(move);
+            return perft(game, depth);
+        }
+    }
+
+    /**
+     * Perft split by root move, for finding which move a wrong count comes from
+     *
+     * @return node count below each legal root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generateMoves(game, moves);
+        for (int i = 0; i < count; i++) {
+            long undo = game.doMove(moves[i]);
+            counts.put(Move.toChessMove(moves[i]), perft(game, depth - 1));
+            game.undoMove(undo);
+        }
+        return counts;
+    }
+
+    /**
+     * Usage: {@code Perft <depth> [fen]}
+     */
+    public static void main(String[] args) {
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        String fen = (args.length > 1) ? String.join(" ", Arrays.copyOfRange(args, 1, args.length))
+                : Fen.START_POSITION;
+        ChessGame game = Fen.parse(fen);
+
+        long start = System.nanoTime();
+        long total = 0;
+        for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        long nanos = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.printf("Nodes: %d%n", total);
+        System.out.printf("Time: %d ms%n", nanos / 1_000_000);
+        System.out.printf("NPS: %d%n", nanos == 0 ? 0 : total * 1_000_000_000L / nanos);
+    }
+}
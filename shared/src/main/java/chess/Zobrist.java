@@ -0,0 +1,78 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the
+ * key of every piece on its square, the side to move, the castling rights
+ * and the en passant file, so making a move
+ * only XORs out the squares it empties and XORs in the squares it fills.
+ * <p>
+ * The keys come from a fixed seed. Saved games and opening books store
+ * these hashes, so the seed and the order the tables are filled in must
+ * never change.
+ */
+public class Zobrist {
+    private static final long SEED = 0x240C4E55L;
+
+    //indexed by ChessBoard piece index, then square
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+    //indexed by the packed castling rights, so every combination is one lookup
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+
+        long[] castlingRight = new long[4];
+        for (int right = 0; right < 4; right++) {
+            castlingRight[right] = random.nextLong();
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            for (int right = 0; right < 4; right++) {
+                if ((rights & (1 << right)) != 0) {
+                    CASTLING[rights] ^= castlingRight[right];
+                }
+            }
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+    }
+
+    /**
+     * @param pieceIndex piece index as used by ChessBoard (color * 6 + type)
+     * @param square     bitboard square index
+     */
+    static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex][square];
+    }
+
+    /**
+     * @return the key folded in when it is black's turn
+     */
+    static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    /**
+     * @param castlingRights castling rights packed as in ChessGame
+     */
+    static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    /**
+     * @param square en passant target square index
+     */
+    static long enPassant(int square) {
+        return EN_PASSANT_FILE[square & 7];
+    }
+}
@@ -2,7 +2,15 @@ package model;
 
 import chess.ChessGame;
 
+/**
+ * @param version how many times the stored game has been written. A write of this
+ *                game only succeeds while the stored version is still this one
+ */
 public record GameData(ChessGame game, int gameID, String gameName, 
-                        String whiteUsername, String blackUsername) {
-                            
-}
\ No newline at end of file
+                        String whiteUsername, String blackUsername, int version) {
+
+    //a game that has not been written since it was created
+    public GameData(ChessGame game, int gameID, String gameName, String whiteUsername, String blackUsername) {
+        this(game, gameID, gameName, whiteUsername, blackUsername, 0);
+    }
+}
@@ -0,0 +1,313 @@
+package piecemoves;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import chess.*;
+
+/**
+ * Precomputed attack sets for every piece type, indexed by bitboard square
+ * (0 = a1, 63 = h8). Sliding pieces use magic bitboards: the blockers on a
+ * piece's rays are multiplied by a per-square magic number and shifted down to
+ * index a table filled in once when the class loads, so a bishop, rook or queen
+ * attack set costs a mask, a multiply and a lookup.
+ */
+public class AttackTables {
+    private static final long[] ROOK_MAGICS = {
+        0x0080008020400010L, 0x8040002000100048L, 0x0880082004801000L, 0x0880080004811000L,
+        0x0200209004484200L, 0x1480040080090600L, 0x45000A0001940100L, 0x0100003286034100L,
+        0x0821802080014000L, 0x8080400050002000L, 0x0201001020010040L, 0x0143002100500218L,
+        0x4045000488001102L, 0x0022001009020004L, 0x2203000A00070004L, 0x0101000081000042L,
+        0x0000808000400030L, 0x0100810020400100L, 0x0000828020001000L, 0x0002020010400820L,
+        0x0420050030280100L, 0x1221818002000400L, 0x00020400A8011022L, 0x3841020004208041L,
+        0x0040802280004005L, 0x0410400080201084L, 0x8840410100102000L, 0x408100210010000AL,
+        0x0080050100080010L, 0x4804008080040200L, 0x019A00E200080104L, 0x0014205200041081L,
+        0x40028040058001A5L, 0x1140100020A00800L, 0x0001802006801006L, 0x8480100082800801L,
+        0x4010041101000800L, 0x0000020080800400L, 0x0200489004000122L, 0x0004040042003081L,
+        0x0020204002818009L, 0x0150002010404000L, 0x0083014020050010L, 0x0250040008004040L,
+        0x0001000408010010L, 0x0802008004008002L, 0x88101008010400C2L, 0x1100005081020004L,
+        0x0022210C80004900L, 0xC001004A04228200L, 0x00A0200040110100L, 0xA000082100100100L,
+        0x6408008004000880L, 0x2100020080040080L, 0x0A08920841101400L, 0x0000011C0040A200L,
+        0x010A008020401102L, 0x0001002010804001L, 0x02804119A0010013L, 0x0230201000080501L,
+        0x8042011028A02402L, 0xC80100040092080DL, 0x0000412810088604L, 0x2100092091040042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+        0x0E04082840408200L, 0x0104080800508012L, 0x2808024403234080L, 0x0008208030008004L,
+        0x2002021054400290L, 0x0C12221041802000L, 0x5020880108200010L, 0x1010210410040240L,
+        0x0421904408480045L, 0x4850480284284200L, 0x950122020042040CL, 0x80B0211041080000L,
+        0x0000045040008884L, 0x9014010402C00800L, 0x0012008410190484L, 0x8401030090902800L,
+        0x1E8B00100210040CL, 0x1208A02028012050L, 0xC910001800801170L, 0xC008042104130008L,
+        0x1202004422010503L, 0xC001004210108408L, 0x0100801202412090L, 0x0049000029080200L,
+        0x4010100240040140L, 0x001D500004101209L, 0x0000821010480200L, 0x2012008018008440L,
+        0x0010028044008410L, 0x0341110042004109L, 0x800C006061081210L, 0xA104044100864409L,
+        0x8102082008042004L, 0x0425100901302100L, 0x0180840401404040L, 0x100A020080080080L,
+        0x000C040400013100L, 0x2210021080063000L, 0x829011004C010402L, 0x0341084080120210L,
+        0x8008010820008850L, 0x0C06420820A00490L, 0x2C09840241085804L, 0x10220C2214020801L,
+        0x40012000A4022480L, 0x28A8200800301280L, 0x0002324222100400L, 0x0030008A00588081L,
+        0x429400C410085080L, 0x8000220202204000L, 0x0010802C02080040L, 0x0000000042022100L,
+        0x0000004008220010L, 0x1008206012008800L, 0x8009208414004000L, 0x101002020C082000L,
+        0x100180805320201EL, 0x800020404A109006L, 0x0401090021080889L, 0x2008204861420884L,
+        0x20800C02A0202480L, 0x0458009020210104L, 0x8020208801282082L, 0x0110245004005011L
+    };
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_OFFSETS = {{1, -1}, {1, 0}, {1, 1}, {0, -1}, {0, 1}, {-1, -1}, {-1, 0}, {-1, 1}};
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    //indexed by color ordinal, then square
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    //indexed by two squares that share a rank, file or diagonal; 0 otherwise
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            ROOK_MASKS[square] = relevantBlockers(square, ROOK_DIRECTIONS);
+            BISHOP_MASKS[square] = relevantBlockers(square, BISHOP_DIRECTIONS);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK_ATTACKS[square] = fillMagicTable(square, ROOK_MASKS[square], ROOK_MAGICS[square],
+                    ROOK_SHIFTS[square], ROOK_DIRECTIONS);
+            BISHOP_ATTACKS[square] = fillMagicTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square],
+                    BISHOP_SHIFTS[square], BISHOP_DIRECTIONS);
+
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_OFFSETS);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long ends = (1L << a) | (1L << b);
+                if (a != b && (rookAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, 1L << b) & rookAttacks(b, 1L << a);
+                    LINE[a][b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | ends;
+                }
+                else if (a != b && (bishopAttacks(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, 1L << b) & bishopAttacks(b, 1L << a);
+                    LINE[a][b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | ends;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return squares a bishop on the square attacks given the occupied squares,
+     * including the first blocker of either color in each direction
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    /**
+     * @return squares a rook on the square attacks given the occupied squares,
+     * including the first blocker of either color in each direction
+     */
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    /**
+     * @return squares a queen on the square attacks given the occupied squares
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    /**
+     * @return squares a knight on the square attacks
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * @return squares a king on the square attacks
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return squares a pawn of the given color on the square attacks diagonally
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @return squares strictly between two squares on a shared rank, file or
+     * diagonal, or 0 if they don't share one
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return the whole rank, file or diagonal running through both squares,
+     * or 0 if they don't share one
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Finds every piece of one color that attacks a square
+     *
+     * @param board    board holding the attackers
+     * @param square   square being attacked
+     * @param attacker color of the attacking pieces
+     * @param occupied squares treated as blocking sliding pieces
+     * @return bitboard of the attacking pieces
+     */
+    public static long attackersOf(ChessBoard board, int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = (attacker == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = board.getPieces(attacker, ChessPiece.PieceType.QUEEN);
+
+        //a pawn attacks the square if a defending pawn on the square would attack it back
+        return (pawnAttacks(defender, square) & board.getPieces(attacker, ChessPiece.PieceType.PAWN))
+                | (knightAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (kingAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KING))
+                | (bishopAttacks(square, occupied) & (board.getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens))
+                | (rookAttacks(square, occupied) & (board.getPieces(attacker, ChessPiece.PieceType.ROOK) | queens));
+    }
+
+    /**
+     * @return every square a piece of the given color attacks, whether or not it is
+     * occupied, with sliders blocked by the board's pieces
+     */
+    public static long attacksOf(ChessBoard board, ChessGame.TeamColor color) {
+        long pawns = board.getPieces(color, ChessPiece.PieceType.PAWN);
+        long attacks;
+        if (color == ChessGame.TeamColor.WHITE) {
+            attacks = ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+        }
+        else {
+            attacks = ((pawns & ~FILE_A) >>> 9) | ((pawns & ~FILE_H) >>> 7);
+        }
+
+        long occupied = board.getOccupancy();
+        long queens = board.getPieces(color, ChessPiece.PieceType.QUEEN);
+        for (long knights = board.getPieces(color, ChessPiece.PieceType.KNIGHT); knights != 0; knights &= knights - 1) {
+            attacks |= knightAttacks(Long.numberOfTrailingZeros(knights));
+        }
+        for (long diagonal = board.getPieces(color, ChessPiece.PieceType.BISHOP) | queens; diagonal != 0;
+             diagonal &= diagonal - 1) {
+            attacks |= bishopAttacks(Long.numberOfTrailingZeros(diagonal), occupied);
+        }
+        for (long straight = board.getPieces(color, ChessPiece.PieceType.ROOK) | queens; straight != 0;
+             straight &= straight - 1) {
+            attacks |= rookAttacks(Long.numberOfTrailingZeros(straight), occupied);
+        }
+        for (long kings = board.getPieces(color, ChessPiece.PieceType.KING); kings != 0; kings &= kings - 1) {
+            attacks |= kingAttacks(Long.numberOfTrailingZeros(kings));
+        }
+        return attacks;
+    }
+
+    /**
+     * @return the color of the piece on the square, or null if the square is empty
+     */
+    static ChessGame.TeamColor colorAt(ChessBoard board, int square) {
+        long bit = 1L << square;
+        if ((board.getOccupancy(ChessGame.TeamColor.WHITE) & bit) != 0) {
+            return ChessGame.TeamColor.WHITE;
+        }
+        if ((board.getOccupancy(ChessGame.TeamColor.BLACK) & bit) != 0) {
+            return ChessGame.TeamColor.BLACK;
+        }
+        return null;
+    }
+
+    /**
+     * Turns a bitboard of target squares into non-promoting moves from start
+     */
+    static Collection<ChessMove> toMoves(ChessPosition start, long targets) {
+        Collection<ChessMove> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(new ChessMove(start, ChessPosition.fromSquareIndex(to), null));
+            targets &= targets - 1;
+        }
+        return moves;
+    }
+
+    //every square on the rays except the board edge, since a piece on the edge can't block anything further
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (onBoard(row + direction[0], col + direction[1])) {
+                mask |= 1L << (row * 8 + col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowSlidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (onBoard(row, col)) {
+                long bit = 1L << (row * 8 + col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long[] fillMagicTable(int square, long mask, long magic, int shift, int[][] directions) {
+        long[] table = new long[1 << (64 - shift)];
+        //walk every subset of the mask (Carry-Rippler trick)
+        long blockers = 0L;
+        do {
+            int index = (int) ((blockers * magic) >>> shift);
+            table[index] = slowSlidingAttacks(square, blockers, directions);
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+        return table;
+    }
+
+    private static long stepAttacks(int square, int[][] offsets) {
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            int row = square / 8 + offset[0];
+            int col = square % 8 + offset[1];
+            if (onBoard(row, col)) {
+                attacks |= 1L << (row * 8 + col);
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+}
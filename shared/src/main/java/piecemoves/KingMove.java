@@ -23,7 +23,7 @@ public class KingMove {
                 int col = start.getColumn() + j;
 
                 if (row >= 1 && row <= 8 && col >= 1 && col <= 8) { //must be in bounds
-                    ChessPosition potentialPos = new ChessPosition(row, col); //examine potential space
+                    ChessPosition potentialPos = ChessPosition.of(row, col); //examine potential space
                     ChessPiece potentialPosPiece = board.getPiece(potentialPos); //and if a piece is present
 
                     if (potentialPosPiece == null || //empty space is valid
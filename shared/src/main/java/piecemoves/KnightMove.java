@@ -30,7 +30,7 @@ public class KnightMove {
                 if (Math.abs(i) != Math.abs(j) && //must be L shaped move
                     row >= 1 && row <= 8 && col >= 1 && col <= 8) { //and must be in bounds
                         
-                    ChessPosition potentialPos = new ChessPosition(row, col); //examine potential space
+                    ChessPosition potentialPos = ChessPosition.of(row, col); //examine potential space
                     ChessPiece potentialPosPiece = board.getPiece(potentialPos); //and if a piece is present
 
                     if (potentialPosPiece == null || //empty space is valid
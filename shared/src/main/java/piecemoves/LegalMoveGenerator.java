@@ -0,0 +1,368 @@
+package piecemoves;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import chess.*;
+
+/**
+ * Generates only fully legal moves. Before looking at any piece it finds the
+ * enemy pieces giving check and the friendly pieces pinned to the king, then
+ * limits every piece's targets to squares that keep the king safe:
+ * <ul>
+ *     <li>in double check only the king may move</li>
+ *     <li>in single check other pieces must capture the checker or block its ray</li>
+ *     <li>a pinned piece may only move along the line through its king and pinner</li>
+ *     <li>the king may only step to squares not attacked once it has left its square</li>
+ * </ul>
+ * Castling and en passant depend on earlier moves, not just the board, so they
+ * are only generated when the caller passes the game's castling rights and en
+ * passant square. An en passant capture removes two pieces from the rank the
+ * king may stand on, so it is checked on its own by recomputing the king's
+ * attackers with both pawns gone.
+ * <p>
+ * No move is ever made on the board to test it. Moves are generated as ints
+ * (see {@link Move}) into a caller's buffer, and only turned into ChessMoves by
+ * the methods that return a Collection.
+ */
+public class LegalMoveGenerator {
+    /**
+     * Buffer size that holds every legal move of any position (the most known is 218)
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final ChessPiece.PieceType[] PROMOTION_PIECES = {
+        ChessPiece.PieceType.QUEEN,
+        ChessPiece.PieceType.KNIGHT,
+        ChessPiece.PieceType.BISHOP,
+        ChessPiece.PieceType.ROOK
+    };
+
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = 0xFFL << 56;
+
+    //one entry per castling right: the right's bit, and where the king and rook start and the king ends
+    private static final int[] CASTLE_RIGHT = {
+        ChessGame.WHITE_KINGSIDE, ChessGame.WHITE_QUEENSIDE, ChessGame.BLACK_KINGSIDE, ChessGame.BLACK_QUEENSIDE
+    };
+    private static final int[] CASTLE_KING_FROM = {4, 4, 60, 60};
+    private static final int[] CASTLE_KING_TO = {6, 2, 62, 58};
+    private static final int[] CASTLE_ROOK_FROM = {7, 0, 63, 56};
+
+    /**
+     * @return every legal move of the piece at start, or null if start is empty. Never castles or captures en passant.
+     */
+    public static Collection<ChessMove> getLegalMoves(ChessBoard board, ChessPosition start) {
+        return getLegalMoves(board, start, 0, -1);
+    }
+
+    /**
+     * @param castlingRights  castling rights packed as in {@link ChessGame#getCastlingRights()}
+     * @param enPassantSquare square a pawn can capture en passant on, or -1
+     * @return every legal move of the piece at start, or null if start is empty
+     */
+    public static Collection<ChessMove> getLegalMoves(ChessBoard board, ChessPosition start,
+                                                      int castlingRights, int enPassantSquare) {
+        int square = start.getSquareIndex();
+        ChessGame.TeamColor color = AttackTables.colorAt(board, square);
+
+        if (color == null) {
+            return null;
+        }
+
+        int[] moves = new int[MAX_MOVES];
+        int count = generate(board, color, 1L << square, castlingRights, enPassantSquare, moves, false);
+        return toChessMoves(moves, count);
+    }
+
+    /**
+     * @return every legal move the given team can make. Never castles or captures en passant.
+     */
+    public static Collection<ChessMove> getLegalMoves(ChessBoard board, ChessGame.TeamColor color) {
+        int[] moves = new int[MAX_MOVES];
+        return toChessMoves(moves, generate(board, color, -1L, 0, -1, moves, false));
+    }
+
+    /**
+     * @return every legal move the team to move in the game can make
+     */
+    public static Collection<ChessMove> getLegalMoves(ChessGame game) {
+        int[] moves = new int[MAX_MOVES];
+        return toChessMoves(moves, generateMoves(game, moves));
+    }
+
+    /**
+     * Writes every legal move the team to move can make into moves, starting at index 0
+     *
+     * @param moves buffer of at least MAX_MOVES entries, reused between calls
+     * @return number of moves written
+     */
+    public static int generateMoves(ChessGame game, int[] moves) {
+        return generate(game.getBoard(), game.getTeamTurn(), -1L, game.getCastlingRights(),
+                game.getEnPassantSquare(), moves, false);
+    }
+
+    /**
+     * Writes every legal move of the piece on one square into moves, starting at index 0.
+     * The piece moves as if it were its team's turn.
+     *
+     * @param square square index of the piece
+     * @param moves  buffer of at least MAX_MOVES entries, reused between calls
+     * @return number of moves written, 0 if the square is empty
+     */
+    public static int generateMoves(ChessGame game, int square, int[] moves) {
+        ChessGame.TeamColor color = AttackTables.colorAt(game.getBoard(), square);
+        if (color == null) {
+            return 0;
+        }
+        return generate(game.getBoard(), color, 1L << square, game.getCastlingRights(),
+                game.getEnPassantSquare(), moves, false);
+    }
+
+    /**
+     * @return true if the given team has at least one legal move. Stops at the first one found.
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color) {
+        return hasLegalMove(board, color, 0, -1);
+    }
+
+    /**
+     * @param castlingRights  castling rights packed as in {@link ChessGame#getCastlingRights()}
+     * @param enPassantSquare square a pawn can capture en passant on, or -1
+     * @return true if the given team has at least one legal move. Stops at the first one found.
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color,
+                                       int castlingRights, int enPassantSquare) {
+        return generate(board, color, -1L, castlingRights, enPassantSquare, null, true) > 0;
+    }
+
+    /**
+     * Generates legal moves for the pieces of one color that sit on fromMask
+     *
+     * @param castlingRights  castling rights of both teams
+     * @param enPassantSquare square a pawn can capture en passant on, or -1
+     * @param out             buffer to write moves to from index 0, or null to only count them
+     * @param stopAtFirst     return as soon as one legal move has been found
+     * @return number of legal moves found
+     */
+    private static int generate(ChessBoard board, ChessGame.TeamColor us, long fromMask,
+                                int castlingRights, int enPassantSquare,
+                                int[] out, boolean stopAtFirst) {
+        ChessGame.TeamColor them = (us == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long ours = board.getOccupancy(us);
+        long theirs = board.getOccupancy(them);
+        long occupied = board.getOccupancy();
+        long kingBit = board.getPieces(us, ChessPiece.PieceType.KING);
+        int count = 0;
+
+        //boards without a king (piece move setups) have no check or pins to respect
+        long checkers = 0L;
+        long pinned = 0L;
+        int king = board.getKingSquare(us);
+        if (king >= 0) {
+            checkers = AttackTables.attackersOf(board, king, them, occupied);
+            pinned = pinnedPieces(board, king, us, them, ours, occupied);
+
+            if ((kingBit & fromMask) != 0) {
+                long targets = AttackTables.kingAttacks(king) & ~ours;
+                long withoutKing = occupied & ~kingBit;
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    if (AttackTables.attackersOf(board, to, them, withoutKing) == 0) {
+                        count += emit(out, count, king, to, captureFlag(theirs, to), false);
+                        if (stopAtFirst) {
+                            return count;
+                        }
+                    }
+                }
+                if (checkers == 0 && castlingRights != 0) {
+                    count += castles(board, us, them, king, castlingRights, occupied, out, count);
+                    if (stopAtFirst && count > 0) {
+                        return count;
+                    }
+                }
+            }
+        }
+
+        //in double check only the king can move
+        if (Long.bitCount(checkers) > 1) {
+            return count;
+        }
+
+        //squares that resolve a single check: capture the checker or block its ray
+        long checkMask = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | AttackTables.between(king, checker);
+        }
+
+        long pieces = ours & ~kingBit & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            long targets = pseudoTargets(board, us, from, ours, theirs, occupied) & checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                targets &= AttackTables.line(king, from);
+            }
+            boolean isPawn = (board.getPieces(us, ChessPiece.PieceType.PAWN) & (1L << from)) != 0;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                boolean promotes = isPawn && ((1L << to) & (RANK_1 | RANK_8)) != 0;
+                count += emit(out, count, from, to, captureFlag(theirs, to), promotes);
+                if (stopAtFirst) {
+                    return count;
+                }
+            }
+            if (isPawn && enPassantSquare >= 0
+                    && (AttackTables.pawnAttacks(us, from) & (1L << enPassantSquare)) != 0
+                    && enPassantIsLegal(board, us, them, king, from, enPassantSquare, occupied)) {
+                count += emit(out, count, from, enPassantSquare, Move.CAPTURE | Move.EN_PASSANT, false);
+                if (stopAtFirst) {
+                    return count;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Castling moves of a king that is not in check. The squares between king and
+     * rook must be empty, and the king may not pass over or land on an attacked square.
+     */
+    private static int castles(ChessBoard board, ChessGame.TeamColor us, ChessGame.TeamColor them, int king,
+                               int castlingRights, long occupied, int[] out, int offset) {
+        int count = 0;
+        int first = (us == ChessGame.TeamColor.WHITE) ? 0 : 2;
+        long rooks = board.getPieces(us, ChessPiece.PieceType.ROOK);
+        for (int i = first; i < first + 2; i++) {
+            int rook = CASTLE_ROOK_FROM[i];
+            if ((castlingRights & CASTLE_RIGHT[i]) == 0 || king != CASTLE_KING_FROM[i]
+                    || (rooks & (1L << rook)) == 0 || (AttackTables.between(king, rook) & occupied) != 0) {
+                continue;
+            }
+            int to = CASTLE_KING_TO[i];
+            long path = AttackTables.between(king, to) | (1L << to);
+            if ((board.getAttacks(them) & path) == 0) {
+                count += emit(out, offset + count, king, to, Move.CASTLE, false);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks an en passant capture by taking both pawns off the occupancy and looking
+     * for attackers of the king. This catches the pawn that gave check being captured,
+     * pins of the capturing pawn, and sliders behind both pawns on the king's rank.
+     */
+    private static boolean enPassantIsLegal(ChessBoard board, ChessGame.TeamColor us, ChessGame.TeamColor them,
+                                            int king, int from, int target, long occupied) {
+        //the target square is only ever on the rank the capturing pawns of one team reach
+        int targetRow = (us == ChessGame.TeamColor.WHITE) ? 5 : 2;
+        if (target / 8 != targetRow) {
+            return false;
+        }
+        if (king < 0) {
+            return true;
+        }
+        long capturedBit = 1L << (target + ((us == ChessGame.TeamColor.WHITE) ? -8 : 8));
+        long after = (occupied & ~(1L << from) & ~capturedBit) | (1L << target);
+        return (AttackTables.attackersOf(board, king, them, after) & ~capturedBit) == 0;
+    }
+
+    /**
+     * Target squares of a non-king piece, ignoring checks and pins
+     */
+    private static long pseudoTargets(ChessBoard board, ChessGame.TeamColor us, int from,
+                                      long ours, long theirs, long occupied) {
+        long bit = 1L << from;
+        if ((board.getPieces(us, ChessPiece.PieceType.PAWN) & bit) != 0) {
+            return pawnTargets(us, from, theirs, occupied);
+        }
+        if ((board.getPieces(us, ChessPiece.PieceType.KNIGHT) & bit) != 0) {
+            return AttackTables.knightAttacks(from) & ~ours;
+        }
+        if ((board.getPieces(us, ChessPiece.PieceType.BISHOP) & bit) != 0) {
+            return AttackTables.bishopAttacks(from, occupied) & ~ours;
+        }
+        if ((board.getPieces(us, ChessPiece.PieceType.ROOK) & bit) != 0) {
+            return AttackTables.rookAttacks(from, occupied) & ~ours;
+        }
+        return AttackTables.queenAttacks(from, occupied) & ~ours;
+    }
+
+    private static long pawnTargets(ChessGame.TeamColor us, int from, long theirs, long occupied) {
+        boolean white = (us == ChessGame.TeamColor.WHITE);
+        int forward = white ? 8 : -8;
+        int startRow = white ? 1 : 6;
+        long targets = AttackTables.pawnAttacks(us, from) & theirs;
+
+        int one = from + forward;
+        if (one >= 0 && one < 64 && (occupied & (1L << one)) == 0) {
+            targets |= 1L << one;
+            int two = one + forward;
+            if (from / 8 == startRow && (occupied & (1L << two)) == 0) {
+                targets |= 1L << two;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Friendly pieces that are the only thing between the king and an enemy slider
+     */
+    private static long pinnedPieces(ChessBoard board, int king, ChessGame.TeamColor us,
+                                     ChessGame.TeamColor them, long ours, long occupied) {
+        long theirs = board.getOccupancy(them);
+        long queens = board.getPieces(them, ChessPiece.PieceType.QUEEN);
+        //enemy sliders that would hit the king if only enemy pieces blocked
+        long snipers = (AttackTables.rookAttacks(king, theirs)
+                & (board.getPieces(them, ChessPiece.PieceType.ROOK) | queens))
+                | (AttackTables.bishopAttacks(king, theirs)
+                & (board.getPieces(them, ChessPiece.PieceType.BISHOP) | queens));
+
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = AttackTables.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & ours) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private static int captureFlag(long theirs, int to) {
+        return ((theirs & (1L << to)) != 0) ? Move.CAPTURE : 0;
+    }
+
+    /**
+     * Writes one move, or one per promotion piece, at out[index]
+     *
+     * @return number of moves written
+     */
+    private static int emit(int[] out, int index, int from, int to, int flags, boolean promotes) {
+        if (!promotes) {
+            if (out != null) {
+                out[index] = Move.of(from, to) | flags;
+            }
+            return 1;
+        }
+        if (out != null) {
+            for (ChessPiece.PieceType piece : PROMOTION_PIECES) {
+                out[index++] = Move.of(from, to, piece) | flags;
+            }
+        }
+        return PROMOTION_PIECES.length;
+    }
+
+    private static Collection<ChessMove> toChessMoves(int[] moves, int count) {
+        Collection<ChessMove> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
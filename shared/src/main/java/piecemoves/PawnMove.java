@@ -30,7 +30,7 @@ public class PawnMove {
         };
 
         // Straight move
-        ChessPosition potentialStraight = new ChessPosition(row + direction, col);
+        ChessPosition potentialStraight = ChessPosition.of(row + direction, col);
         if (board.getPiece(potentialStraight) == null) {
             if (promotion) {
                 for (ChessPiece.PieceType piece : promotionPieces) {
@@ -43,7 +43,7 @@ public class PawnMove {
 
             // 2 space opener
             if (opener) {
-                ChessPosition potentialOpener = new ChessPosition(row + direction * 2, col);
+                ChessPosition potentialOpener = ChessPosition.of(row + direction * 2, col);
                 if (board.getPiece(potentialOpener) == null) {
                     moves.add(new ChessMove(start, potentialOpener, null));
                 }
@@ -57,7 +57,7 @@ public class PawnMove {
                 continue;
             }
 
-            ChessPosition potentialDiagonal = new ChessPosition(row + direction, col);
+            ChessPosition potentialDiagonal = ChessPosition.of(row + direction, col);
             ChessPiece diagonalPiece = board.getPiece(potentialDiagonal);
             if (diagonalPiece != null && diagonalPiece.getTeamColor() != color) {
                 if (promotion) {
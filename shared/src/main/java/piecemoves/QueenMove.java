@@ -2,24 +2,18 @@ package piecemoves;
 
 import java.util.Collection;
 import chess.*;
-import java.util.ArrayList;
 
 public class QueenMove {
     public static Collection<ChessMove> getQueenMoves(ChessBoard board, ChessPosition start) {
-        Collection<ChessMove> moves = new ArrayList<>();
+        int square = start.getSquareIndex();
+        ChessGame.TeamColor color = AttackTables.colorAt(board, square);
 
-        //borrow from existing functions
-        Collection<ChessMove> diagonal = BishopMove.getBishopMoves(board, start);
-        Collection<ChessMove> straight = RookMove.getRookMoves(board, start);
-        
-        //copy it over
-        for (ChessMove move : diagonal) {
-            moves.add(move);
-        }
-        for (ChessMove move : straight) {
-            moves.add(move);
+        if (color == null) {
+            return null;
         }
 
-        return moves;
+        //bishop and rook rays together
+        long targets = AttackTables.queenAttacks(square, board.getOccupancy()) & ~board.getOccupancy(color);
+        return AttackTables.toMoves(start, targets);
     }
 }
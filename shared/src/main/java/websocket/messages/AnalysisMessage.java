@@ -0,0 +1,64 @@
+package websocket.messages;
+
+import chess.ChessMove;
+
+/**
+ * Result of an ANALYZE or HINT command, sent only to the user who asked. A
+ * hint in a known opening comes straight from the opening book; anything else
+ * is sent once a server worker has searched the position.
+ */
+public class AnalysisMessage extends ServerMessage {
+    private final int gameID;
+    //null if the side to move has no legal move
+    private final ChessMove bestMove;
+    //centipawns from white's point of view
+    private final int evaluation;
+    private final boolean mate;
+    private final int depth;
+    private final boolean fromBook;
+
+    public AnalysisMessage(int gameID, ChessMove bestMove, int evaluation, boolean mate, int depth) {
+        this(gameID, bestMove, evaluation, mate, depth, false);
+    }
+
+    public AnalysisMessage(int gameID, ChessMove bestMove, int evaluation, boolean mate, int depth, boolean fromBook) {
+        super(ServerMessageType.ANALYSIS);
+        this.gameID = gameID;
+        this.bestMove = bestMove;
+        this.evaluation = evaluation;
+        this.mate = mate;
+        this.depth = depth;
+        this.fromBook = fromBook;
+    }
+
+    public int getGameID() {
+        return gameID;
+    }
+
+    public ChessMove getBestMove() {
+        return bestMove;
+    }
+
+    public int getEvaluation() {
+        return evaluation;
+    }
+
+    /**
+     * @return true if the evaluation is a forced mate rather than a material score
+     */
+    public boolean isMate() {
+        return mate;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return true if the move is an opening book move, in which case the depth is 0
+     * and the evaluation is the static one
+     */
+    public boolean isFromBook() {
+        return fromBook;
+    }
+}
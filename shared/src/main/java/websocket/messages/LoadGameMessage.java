@@ -5,11 +5,14 @@ import chess.ChessGame;
 public class LoadGameMessage extends ServerMessage {
     private ChessGame game;
     private int gameID;
+    //centipawns from white's point of view, for the observers' evaluation bar
+    private int evaluation;
 
     public LoadGameMessage(ChessGame game, int gameID) {
         super(ServerMessageType.LOAD_GAME);
         this.game = game;
         this.gameID = gameID;
+        this.evaluation = (game == null || game.getBoard() == null) ? 0 : game.evaluate();
     }
 
     public ChessGame getGame() { 
@@ -19,4 +22,8 @@ public class LoadGameMessage extends ServerMessage {
     public int getGameID() { 
         return gameID; 
     }
+
+    public int getEvaluation() {
+        return evaluation;
+    }
 }
\ No newline at end of file
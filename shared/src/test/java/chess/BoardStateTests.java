@@ -0,0 +1,67 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import piecemoves.AttackTables;
+import piecemoves.LegalMoveGenerator;
+
+public class BoardStateTests {
+
+    @Test
+    @DisplayName("King squares follow the kings")
+    void kingSquares() {
+        ChessGame game = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        ChessBoard board = game.getBoard();
+        assertEquals(4, board.getKingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(60, board.getKingSquare(ChessGame.TeamColor.BLACK));
+
+        long undo = game.doMove(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(1, 7), null));
+        assertEquals(6, board.getKingSquare(ChessGame.TeamColor.WHITE));
+        game.undoMove(undo);
+        assertEquals(4, board.getKingSquare(ChessGame.TeamColor.WHITE));
+
+        ChessBoard empty = new ChessBoard();
+        assertEquals(-1, empty.getKingSquare(ChessGame.TeamColor.WHITE));
+        empty.addPiece(ChessPosition.of(3, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        assertEquals(18, empty.getKingSquare(ChessGame.TeamColor.WHITE));
+        empty.resetBoard();
+        assertEquals(4, empty.getKingSquare(ChessGame.TeamColor.WHITE));
+        assertEquals(60, empty.getKingSquare(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Attack maps match attacker lookups and follow moves")
+    void attackMaps() {
+        String[] fens = {
+            Fen.START_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        };
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        for (String fen : fens) {
+            ChessGame game = Fen.parse(fen);
+            assertAttackMapsMatch(game.getBoard());
+
+            //every move invalidates the cached maps, and undoing it brings the old ones back
+            int count = LegalMoveGenerator.generateMoves(game, moves);
+            for (int i = 0; i < count; i++) {
+                long undo = game.doMove(moves[i]);
+                assertAttackMapsMatch(game.getBoard());
+                game.undoMove(undo);
+                assertAttackMapsMatch(game.getBoard());
+            }
+        }
+    }
+
+    private static void assertAttackMapsMatch(ChessBoard board) {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            long expected = 0;
+            for (int square = 0; square < 64; square++) {
+                if (AttackTables.attackersOf(board, square, color, board.getOccupancy()) != 0) {
+                    expected |= 1L << square;
+                }
+            }
+            assertEquals(expected, board.getAttacks(color), color + " attacks on " + board);
+        }
+    }
+}
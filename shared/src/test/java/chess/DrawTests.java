@@ -0,0 +1,103 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DrawTests {
+    private static final String[] KNIGHT_SHUFFLE = {"g1f3", "g8f6", "f3g1", "f6g8"};
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(new ChessMove(position(move.substring(0, 2)), position(move.substring(2, 4)), null));
+        }
+    }
+
+    private static ChessPosition position(String square) {
+        return new ChessPosition(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    @Test
+    @DisplayName("Threefold repetition")
+    void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        assertFalse(game.isDraw(), "start position has only occurred twice");
+
+        play(game, "g1f3", "g8f6", "f3g1");
+        assertFalse(game.isDraw());
+
+        play(game, "f6g8");
+        assertTrue(game.isThreefoldRepetition());
+        assertTrue(game.isDraw());
+        assertFalse(game.isFiftyMoveDraw());
+    }
+
+    @Test
+    @DisplayName("Pawn move clears the history")
+    void pawnMoveResets() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        play(game, "e2e4", "e7e5");
+        assertEquals(0, game.getHalfmoveClock());
+
+        play(game, KNIGHT_SHUFFLE);
+        assertEquals(4, game.getHalfmoveClock());
+        assertFalse(game.isThreefoldRepetition(), "positions before the pawn moves can not repeat");
+    }
+
+    @Test
+    @DisplayName("Fifty-move rule")
+    void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = Fen.parse("8/8/4k3/8/8/3K4/8/7R w - - 98 80");
+        play(game, "h1h2");
+        assertFalse(game.isFiftyMoveDraw());
+
+        play(game, "e6e5");
+        assertEquals(100, game.getHalfmoveClock());
+        assertTrue(game.isFiftyMoveDraw());
+        assertTrue(game.isDraw());
+    }
+
+    @Test
+    @DisplayName("History survives storage")
+    void historySerialized() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < 2; i++) {
+            for (String move : KNIGHT_SHUFFLE) {
+                play(game, move);
+                //the server stores and reloads the game between every move
+                game = ChessGame.fromStoredJson(game.toStoredJson());
+            }
+        }
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(8, game.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("History left out of client JSON")
+    void historyNotSent() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        String json = new Gson().toJson(game);
+        assertFalse(json.contains("history"));
+
+        ChessGame received = new Gson().fromJson(json, ChessGame.class);
+        assertEquals(game.getBoard(), received.getBoard());
+        play(received, "g1f3");
+        assertFalse(received.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("New board restarts the history")
+    void setBoardRestarts() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, KNIGHT_SHUFFLE);
+        play(game, "g1f3", "g8f6", "f3g1");
+
+        game.setBoard(Fen.parse("4k3/8/8/8/8/8/8/4K2R b - - 0 1").getBoard());
+        play(game, "e8d8");
+        assertEquals(1, game.getHalfmoveClock());
+        assertFalse(game.isDraw());
+    }
+}
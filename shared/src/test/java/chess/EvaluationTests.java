@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import com.google.gson.Gson;
+import piecemoves.LegalMoveGenerator;
+import websocket.messages.LoadGameMessage;
+
+public class EvaluationTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+    //the evaluation of a board built from scratch, to check the incremental one against
+    private static int fresh(ChessGame game) {
+        return new Gson().fromJson(new Gson().toJson(game.getBoard()), ChessBoard.class).getEvaluation();
+    }
+
+    /**
+     * Plays every move to the given depth, checking the evaluation after each move and undo
+     */
+    private static void walk(ChessGame game, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generateMoves(game, moves);
+        for (int i = 0; i < count; i++) {
+            int before = game.evaluate();
+            long undo = game.doMove(moves[i]);
+            assertEquals(fresh(game), game.evaluate(), "after " + Move.toString(moves[i]));
+            walk(game, depth - 1);
+            game.undoMove(undo);
+            assertEquals(before, game.evaluate(), "after undoing " + Move.toString(moves[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("Start position is even")
+    void startPosition() {
+        assertEquals(0, new ChessGame().evaluate());
+        assertEquals(0, Fen.parse(Fen.START_POSITION).evaluate());
+    }
+
+    @Test
+    @DisplayName("Material advantage")
+    void material() {
+        //white is a queen up
+        assertTrue(Fen.parse("4k3/8/8/8/8/8/8/3QK3 w - - 0 1").evaluate() > 800);
+        //the same position with colors swapped scores the same for black
+        assertEquals(-Fen.parse("4k3/8/8/8/8/8/8/3QK3 w - - 0 1").evaluate(),
+                Fen.parse("3qk3/8/8/8/8/8/8/4K3 b - - 0 1").evaluate());
+    }
+
+    @Test
+    @DisplayName("Incremental evaluation matches a fresh board")
+    void incremental() {
+        //between them these cover castling, en passant and promotions
+        walk(Fen.parse(KIWIPETE), 2);
+        walk(Fen.parse(POSITION_4), 2);
+        walk(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 3);
+    }
+
+    @Test
+    @DisplayName("Copies and makeMove keep the evaluation")
+    void copiesAndMakeMove() throws InvalidMoveException {
+        ChessGame game = Fen.parse(KIWIPETE);
+        assertEquals(fresh(game), new ChessGame(game).evaluate());
+        game.makeMove(new ChessMove(ChessPosition.of(5, 5), ChessPosition.of(7, 6), null));
+        assertEquals(fresh(game), game.evaluate());
+    }
+
+    @Test
+    @DisplayName("LOAD_GAME carries the evaluation")
+    void loadGameMessage() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/3QK3 w - - 0 1");
+        String json = new Gson().toJson(new LoadGameMessage(game, 7));
+        LoadGameMessage message = new Gson().fromJson(json, LoadGameMessage.class);
+        assertEquals(game.evaluate(), message.getEvaluation());
+        assertEquals(game.evaluate(), message.getGame().evaluate());
+    }
+}
@@ -0,0 +1,51 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlyweightTests {
+
+    @Test
+    @DisplayName("Positions on the board are shared")
+    void sharedPositions() {
+        assertSame(ChessPosition.of(4, 5), ChessPosition.of(4, 5));
+        assertSame(ChessPosition.of(1, 1), ChessPosition.fromSquareIndex(0));
+        assertEquals(new ChessPosition(8, 8), ChessPosition.of(8, 8));
+        assertEquals(new ChessPosition(0, 9), ChessPosition.of(0, 9), "off-board positions still work");
+    }
+
+    @Test
+    @DisplayName("Board hands out shared pieces")
+    void sharedPieces() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessPiece queen = board.getPiece(ChessPosition.of(1, 4));
+
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN), queen);
+        assertSame(queen, new ChessBoard(board).getPiece(ChessPosition.of(1, 4)));
+        assertThrows(UnsupportedOperationException.class, () -> queen.setPieceType(ChessPiece.PieceType.PAWN));
+
+        ChessPiece own = new ChessPiece(queen);
+        own.setPieceType(ChessPiece.PieceType.PAWN);
+        assertEquals(ChessPiece.PieceType.QUEEN, queen.getPieceType());
+    }
+
+    @Test
+    @DisplayName("JSON keeps its form and reads shared instances")
+    void json() {
+        Gson gson = new Gson();
+        ChessMove move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+        String json = gson.toJson(move);
+        assertEquals("{\"startPosition\":{\"row\":7,\"col\":1},\"endPosition\":{\"row\":8,\"col\":1},"
+                + "\"promotionPiece\":\"QUEEN\"}", json);
+
+        ChessMove read = gson.fromJson(json, ChessMove.class);
+        assertEquals(move, read);
+        assertSame(ChessPosition.of(7, 1), read.getStartPosition());
+
+        ChessPiece piece = gson.fromJson("{\"pieceColor\":\"BLACK\",\"type\":\"KNIGHT\"}", ChessPiece.class);
+        assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT), piece);
+        assertEquals("{\"pieceColor\":\"BLACK\",\"type\":\"KNIGHT\"}", gson.toJson(piece));
+    }
+}
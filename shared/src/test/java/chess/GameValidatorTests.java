@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+public class GameValidatorTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(ChessPosition.of(startRow, startCol), ChessPosition.of(endRow, endCol), null);
+    }
+
+    @Test
+    @DisplayName("Reachable positions have no problems")
+    void validPositions() {
+        assertEquals(List.of(), GameValidator.problems(new ChessGame()));
+        assertEquals(List.of(), GameValidator.problems(
+                Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1")));
+    }
+
+    @Test
+    @DisplayName("Impossible positions are reported")
+    void invalidPositions() {
+        assertEquals(List.of("BLACK has 0 kings"),
+                GameValidator.problems(Fen.parse("8/8/8/8/8/8/8/4K3 w - - 0 1")));
+        assertEquals(List.of("WHITE has a pawn on the first or last rank"),
+                GameValidator.problems(Fen.parse("P3k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+        assertEquals(List.of("BLACK is in check but it is WHITE's turn"),
+                GameValidator.problems(Fen.parse("4k3/8/8/8/8/8/8/4RK2 w - - 0 1")));
+        assertEquals(List.of("BLACK has no legal move but the game is not over"),
+                GameValidator.problems(Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1")));
+    }
+
+    @Test
+    @DisplayName("Bulk validation keeps the order of the games")
+    void validateAll() {
+        ChessGame good = new ChessGame();
+        ChessGame broken = Fen.parse("8/8/8/8/8/8/8/4K3 w - - 0 1");
+        List<List<String>> problems = GameValidator.validateAll(List.of(good, broken, good, broken));
+        assertEquals(4, problems.size());
+        assertTrue(problems.get(0).isEmpty());
+        assertFalse(problems.get(1).isEmpty());
+        assertTrue(problems.get(2).isEmpty());
+        assertFalse(problems.get(3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Replay finds the first illegal move")
+    void replay() {
+        ChessGame start = new ChessGame();
+        //1. e4 e5 2. Nf3, then white moves again
+        List<ChessMove> moves = List.of(move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 7, 3, 6), move(3, 6, 5, 5));
+        assertEquals(-1, GameValidator.firstIllegalMove(start, moves.subList(0, 3)));
+        assertEquals(3, GameValidator.firstIllegalMove(start, moves));
+        assertEquals(0, GameValidator.firstIllegalMove(start, List.of(move(2, 5, 5, 5))));
+        assertEquals(new ChessGame(), start, "replay changed the starting game");
+    }
+
+    @Test
+    @DisplayName("Logged moves are replayed and must reach the stored position")
+    void moveHistory() throws InvalidMoveException {
+        //1. e4 e5, then white's pawn jumps two squares from the fourth rank
+        List<ChessMove> moves = List.of(move(2, 5, 4, 5), move(7, 5, 5, 5), move(4, 5, 6, 5));
+        ChessGame played = new ChessGame();
+        played.makeMove(moves.get(0));
+        played.makeMove(moves.get(1));
+
+        assertEquals(List.of(), GameValidator.problems(played, new MoveLog(new ChessGame(), 1, moves.subList(0, 2))));
+        assertEquals(List.of("move 3 (e4e6) is illegal"),
+                GameValidator.problems(played, new MoveLog(new ChessGame(), 1, moves)));
+        assertEquals(List.of("the position does not match the logged moves"),
+                GameValidator.problems(new ChessGame(), new MoveLog(new ChessGame(), 1, moves.subList(0, 2))));
+
+        //a log that starts at a snapshot is replayed from the snapshot
+        ChessGame snapshot = new ChessGame();
+        snapshot.makeMove(moves.get(0));
+        assertEquals(List.of(), GameValidator.problems(played, new MoveLog(snapshot, 2, moves.subList(1, 2))));
+        assertEquals(List.of("move 3 (e4e6) is illegal"),
+                GameValidator.problems(played, new MoveLog(snapshot, 2, moves.subList(1, 3))));
+
+        List<List<String>> problems = GameValidator.validateAll(List.of(played, played),
+                List.of(new MoveLog(new ChessGame(), 1, moves), new MoveLog(snapshot, 2, moves.subList(1, 2))));
+        assertEquals(1, problems.get(0).size());
+        assertTrue(problems.get(1).isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import piecemoves.LegalMoveGenerator;
+
+public class MoveTests {
+
+    @Test
+    @DisplayName("Encoding round trip")
+    void roundTrip() {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 4), ChessPiece.PieceType.KNIGHT);
+        int encoded = Move.of(promotion);
+
+        assertEquals(52, Move.from(encoded));
+        assertEquals(59, Move.to(encoded));
+        assertEquals(ChessPiece.PieceType.KNIGHT, Move.promotion(encoded));
+        assertEquals(promotion, Move.toChessMove(encoded));
+        assertEquals("e7d8n", Move.toString(encoded));
+
+        int quiet = Move.of(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertNull(Move.promotion(quiet));
+        assertEquals("e2e4", Move.toString(quiet));
+    }
+
+    @Test
+    @DisplayName("Parse long algebraic notation")
+    void parse() {
+        assertEquals(Move.of(12, 28), Move.parse("e2e4"));
+        assertEquals(Move.of(52, 60, ChessPiece.PieceType.QUEEN), Move.parse("e7e8q"));
+        assertEquals("g7h8n", Move.toString(Move.parse("g7h8n")));
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("e2"));
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("e2e9"));
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("e7e8x"));
+    }
+
+    @Test
+    @DisplayName("Generator flags")
+    void generatorFlags() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generateMoves(game, moves);
+        assertEquals(48, count);
+
+        int captures = 0;
+        int castles = 0;
+        for (int i = 0; i < count; i++) {
+            captures += Move.isCapture(moves[i]) ? 1 : 0;
+            castles += Move.isCastle(moves[i]) ? 1 : 0;
+        }
+        assertEquals(8, captures);
+        assertEquals(2, castles);
+    }
+
+    @Test
+    @DisplayName("Flags do not change the move")
+    void flagsIgnoredForIdentity() {
+        ChessGame game = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        int[] moves = new int[LegalMoveGenerator.MAX_MOVES];
+        int count = LegalMoveGenerator.generateMoves(game, new ChessPosition(5, 5).getSquareIndex(), moves);
+
+        int plain = Move.of(36, 43);
+        int enPassant = -1;
+        for (int i = 0; i < count; i++) {
+            if (Move.sameMove(moves[i], plain)) {
+                enPassant = moves[i];
+            }
+        }
+        assertTrue(Move.isEnPassant(enPassant));
+        assertTrue(Move.isCapture(enPassant));
+
+        ChessGame flagged = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        game.doMove(plain);
+        flagged.doMove(enPassant);
+        assertEquals(flagged, game);
+        assertNull(game.getBoard().getPiece(new ChessPosition(5, 4)));
+    }
+}
@@ -0,0 +1,105 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Map;
+
+/**
+ * Checks the move generator against published perft node counts
+ * (https://www.chessprogramming.org/Perft_Results) and reports nodes per second.
+ */
+public class PerftTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    private static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    private static void assertPerft(String fen, long... expected) {
+        ChessGame game = Fen.parse(fen);
+        for (int depth = 1; depth <= expected.length; depth++) {
+            long start = System.nanoTime();
+            long nodes = Perft.perft(game, depth);
+            long nanos = Math.max(1, System.nanoTime() - start);
+
+            assertEquals(expected[depth - 1], nodes, "perft(" + depth + ") of " + fen);
+            System.out.printf("perft(%d) %-70s %10d nodes %8d nps%n", depth, fen, nodes,
+                    nodes * 1_000_000_000L / nanos);
+        }
+        assertEquals(Fen.parse(fen), game, "perft did not restore the position");
+    }
+
+    @Test
+    @DisplayName("Start position")
+    void startPosition() {
+        assertPerft(Fen.START_POSITION, 20, 400, 8_902, 197_281);
+    }
+
+    @Test
+    @DisplayName("Start position depth 5 (first en passant captures)")
+    void startPositionDepth5() {
+        assertEquals(4_865_609, Perft.perft(Fen.parse(Fen.START_POSITION), 5));
+    }
+
+    @Test
+    @DisplayName("Kiwipete")
+    void kiwipete() {
+        assertPerft(KIWIPETE, 48, 2_039, 97_862);
+    }
+
+    @Test
+    @DisplayName("Position 3")
+    void position3() {
+        assertPerft(POSITION_3, 14, 191, 2_812, 43_238);
+    }
+
+    @Test
+    @DisplayName("Position 4")
+    void position4() {
+        assertPerft(POSITION_4, 6, 264, 9_467);
+    }
+
+    @Test
+    @DisplayName("Position 5")
+    void position5() {
+        assertPerft(POSITION_5, 44, 1_486, 62_379);
+    }
+
+    @Test
+    @DisplayName("Position 6")
+    void position6() {
+        assertPerft(POSITION_6, 46, 2_079, 89_890);
+    }
+
+    @Test
+    @DisplayName("Divide sums to perft")
+    void divideMatchesPerft() {
+        ChessGame game = Fen.parse(POSITION_6);
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+        assertEquals(46, divide.size());
+        assertEquals(89_890, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    @DisplayName("Parallel perft matches perft")
+    void parallelPerft() {
+        ChessGame game = Fen.parse(KIWIPETE);
+        assertEquals(4_085_603, Perft.parallelPerft(game, 4));
+        assertEquals(48, Perft.parallelPerft(game, 1));
+        assertEquals(1, Perft.parallelPerft(game, 0));
+        assertEquals(674_624, Perft.parallelPerft(Fen.parse(POSITION_3), 5));
+        assertEquals(Fen.parse(KIWIPETE), game, "parallel perft changed the position");
+    }
+
+    @Test
+    @DisplayName("FEN round trip")
+    void fenRoundTrip() {
+        ChessGame game = Fen.parse(POSITION_3);
+        assertEquals(game, Fen.parse(Fen.toFen(game)));
+        assertEquals(new ChessGame(), Fen.parse(Fen.START_POSITION));
+        assertEquals(KIWIPETE, Fen.toFen(Fen.parse(KIWIPETE)));
+        //the en passant square is only kept when a pawn can capture there
+        assertEquals("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", Fen.toFen(Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1")));
+        assertEquals("4k3/8/8/3p4/8/8/8/4K3 w - - 0 1", Fen.toFen(Fen.parse("4k3/8/8/3p4/8/8/8/4K3 w - d6 0 1")));
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZobristTests {
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(position(from), position(to), null);
+    }
+
+    private static ChessPosition position(String square) {
+        return new ChessPosition(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    @Test
+    @DisplayName("Transpositions share a key")
+    void transpositionsMatch() throws InvalidMoveException {
+        ChessGame knightsFirst = new ChessGame();
+        knightsFirst.makeMove(move("g1", "f3"));
+        knightsFirst.makeMove(move("g8", "f6"));
+        knightsFirst.makeMove(move("b1", "c3"));
+
+        ChessGame otherOrder = new ChessGame();
+        otherOrder.makeMove(move("b1", "c3"));
+        otherOrder.makeMove(move("g8", "f6"));
+        otherOrder.makeMove(move("g1", "f3"));
+
+        assertEquals(knightsFirst.getZobristKey(), otherOrder.getZobristKey());
+        assertEquals(knightsFirst.hashCode(), otherOrder.hashCode());
+    }
+
+    @Test
+    @DisplayName("Side to move changes the key")
+    void sideToMoveMatters() {
+        ChessGame white = new ChessGame();
+        ChessGame black = new ChessGame();
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        assertNotEquals(white.getZobristKey(), black.getZobristKey());
+        assertEquals(white.getBoard().getZobristKey(), black.getBoard().getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Incremental key matches a rebuilt board")
+    void incrementalMatchesRebuilt() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2", "e4"));
+        game.makeMove(move("d7", "d5"));
+        game.makeMove(move("e4", "d5"));
+
+        ChessGame rebuilt = Fen.parse(Fen.toFen(game));
+        assertEquals(rebuilt.getZobristKey(), game.getZobristKey());
+
+        ChessGame fromJson = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+        assertEquals(game.getZobristKey(), fromJson.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("undoMove restores the key")
+    void undoRestoresKey() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        long before = game.getZobristKey();
+        long undo = game.doMove(move("e5", "f7"));
+        assertNotEquals(before, game.getZobristKey());
+        game.undoMove(undo);
+        assertEquals(before, game.getZobristKey());
+    }
+}